@@ -5,6 +5,9 @@ package game;
  */
 public class Ant {
 
+  // all directions in clockwise order
+  private static final Direction[] DIRECTIONS = Direction.values();
+
   /**
    * The {@code Ant}'s x-Coordinate.
    */
@@ -20,6 +23,11 @@ public class Ant {
    */
   private Direction orientation;
 
+  /**
+   * The {@code Ant}'s own state, always 0 for classic ants.
+   */
+  private int state;
+
   /**
    * Creates a new {@code Ant}.
    * 
@@ -32,6 +40,16 @@ public class Ant {
     orientation = Direction.WEST;
   }
 
+  /**
+   * Creates a new {@code Ant} with the given orientation and state.
+   */
+  private Ant(int x, int y, Direction orientation, int state) {
+    xCoordinate = x;
+    yCoordinate = y;
+    this.orientation = orientation;
+    this.state = state;
+  }
+
   /**
    * Creates a copy of a given {@code Ant}.
    * 
@@ -41,6 +59,7 @@ public class Ant {
     xCoordinate = another.xCoordinate;
     yCoordinate = another.yCoordinate;
     orientation = another.orientation;
+    state = another.state;
   }
 
   /**
@@ -54,6 +73,19 @@ public class Ant {
     return new Ant(x, y);
   }
 
+  /**
+   * Creates a new {@code Ant} with the given orientation and state.
+   * 
+   * @param x x-Coordinate of the ant
+   * @param y y-Coordinate of the ant
+   * @param orientation the index of the orientation in {@code Direction.values()}
+   * @param state the state of the ant
+   * @return the newly created {@code Ant}
+   */
+  static Ant create(int x, int y, int orientation, int state) {
+    return new Ant(x, y, DIRECTIONS[orientation], state);
+  }
+
   /**
    * Creates a (deep) copy of a given {@code Ant}.
    * 
@@ -91,6 +123,34 @@ public class Ant {
     return orientation;
   }
 
+  /**
+   * Sets the orientation of the {@code Ant}.
+   * 
+   * @param orientation the index of the orientation in {@code Direction.values()}
+   */
+  void setOrientation(int orientation) {
+    this.orientation = DIRECTIONS[orientation];
+  }
+
+  /** Returns the state of the {@code Ant}. */
+  int getState() {
+    return state;
+  }
+
+  /** Sets the state of the {@code Ant}. */
+  void setState(int state) {
+    this.state = state;
+  }
+
+  /**
+   * Turns the ant clockwise by the given number of quarter turns.
+   * 
+   * @param quarterTurns the number of quarter turns between 0 and 3
+   */
+  void turn(int quarterTurns) {
+    orientation = DIRECTIONS[(orientation.ordinal() + quarterTurns) & 3];
+  }
+
   /** Moves the ant one step forward (depending on its current orientation). */
   void move() {
     switch (orientation) {
@@ -114,44 +174,12 @@ public class Ant {
 
   /** Turns the ant to the right i.e. 90 degrees. */
   void turnRight() {
-    switch (orientation) {
-      case NORTH:
-        orientation = Direction.EAST;
-        break;
-      case EAST:
-        orientation = Direction.SOUTH;
-        break;
-      case SOUTH:
-        orientation = Direction.WEST;
-        break;
-      case WEST:
-        orientation = Direction.NORTH;
-        break;
-      default:
-        // unreachable
-        throw new AssertionError();
-    }
+    turn(Rule.TURN_RIGHT);
   }
 
   /** Turns the ant to the left i.e. 270 degrees. */
   void turnLeft() {
-    switch (orientation) {
-      case NORTH:
-        orientation = Direction.WEST;
-        break;
-      case EAST:
-        orientation = Direction.NORTH;
-        break;
-      case SOUTH:
-        orientation = Direction.EAST;
-        break;
-      case WEST:
-        orientation = Direction.SOUTH;
-        break;
-      default:
-        // unreachable
-        throw new AssertionError();
-    }
+    turn(Rule.TURN_LEFT);
   }
 
 }
@@ -17,6 +17,13 @@ public class AntCell implements Cell {
     this.state = 0;
   }
 
+  /**
+   * Creates a new {@code AntCell} in the given state.
+   */
+  private AntCell(int state) {
+    this.state = state;
+  }
+
   /**
    * Creates a new {@code AntCell}.
    * 
@@ -26,6 +33,16 @@ public class AntCell implements Cell {
     return new AntCell();
   }
 
+  /**
+   * Creates a new {@code AntCell} in the given state.
+   * 
+   * @param state the non-negative state of the cell
+   * @return the newly created {@code AntCell}
+   */
+  static AntCell create(int state) {
+    return new AntCell(state);
+  }
+
   @Override
   public int getState() {
     return state;
@@ -0,0 +1,185 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * Finds the ants on a cell or inside of a rectangle without allocating any objects. The index is
+ * an open-addressing hash table with linear probing, keyed by the packed position of a cell. Each
+ * slot holds the number of ants on its cell and the first ant added to the cell. Since the ants of
+ * a colony move concurrently, the index is cleared and refilled once all of them have moved, which
+ * reuses the table.
+ */
+final class AntIndex {
+
+  // marks an unused slot, no cell has this packed position
+  private static final long FREE = -1;
+
+  // the smallest number of slots
+  private static final int MINIMUM_CAPACITY = 16;
+
+  /**
+   * The packed positions of the occupied cells, {@code FREE} for unused slots.
+   */
+  private long[] positions;
+
+  /**
+   * The number of ants on the cell of each slot.
+   */
+  private int[] counts;
+
+  /**
+   * The first ant added to the cell of each slot.
+   */
+  private Ant[] ants;
+
+  /**
+   * The number of used slots, i.e. of occupied cells.
+   */
+  private int size;
+
+  /**
+   * Creates a new empty {@code AntIndex}.
+   */
+  AntIndex() {
+    allocate(MINIMUM_CAPACITY);
+  }
+
+  /** Replaces the table with an empty one of the given power of two number of slots. */
+  private void allocate(int capacity) {
+    positions = new long[capacity];
+    Arrays.fill(positions, FREE);
+    counts = new int[capacity];
+    ants = new Ant[capacity];
+    size = 0;
+  }
+
+  /** Packs the coordinates of a cell into one key. */
+  private static long pack(int x, int y) {
+    return (long) x << 32 | y & 0xFFFFFFFFL;
+  }
+
+  /** Returns the preferred slot of a packed position. */
+  private int home(long position) {
+    // Fibonacci hashing spreads neighbouring cells over the table
+    return (int) ((position * 0x9E3779B97F4A7C15L) >>> 32) & (positions.length - 1);
+  }
+
+  /** Returns the slot of a packed position or -1 if no ant is on the cell. */
+  private int find(long position) {
+    final int mask = positions.length - 1;
+    for (int slot = home(position); positions[slot] != FREE; slot = (slot + 1) & mask) {
+      if (positions[slot] == position) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Adds an ant at its current position.
+   *
+   * @param ant the ant
+   */
+  void add(Ant ant) {
+    final long position = pack(ant.getX(), ant.getY());
+    if (2 * (size + 1) > positions.length) {
+      rehash(2 * positions.length);
+    }
+    final int mask = positions.length - 1;
+    int slot = home(position);
+    while (positions[slot] != FREE && positions[slot] != position) {
+      slot = (slot + 1) & mask;
+    }
+    if (positions[slot] == FREE) {
+      positions[slot] = position;
+      ants[slot] = ant;
+      size++;
+    }
+    counts[slot]++;
+  }
+
+  /** Rebuilds the table with the given number of slots. */
+  private void rehash(int capacity) {
+    final long[] oldPositions = positions;
+    final int[] oldCounts = counts;
+    final Ant[] oldAnts = ants;
+    allocate(capacity);
+    final int mask = capacity - 1;
+    for (int i = 0; i < oldPositions.length; i++) {
+      if (oldPositions[i] != FREE) {
+        int slot = home(oldPositions[i]);
+        while (positions[slot] != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        positions[slot] = oldPositions[i];
+        counts[slot] = oldCounts[i];
+        ants[slot] = oldAnts[i];
+        size++;
+      }
+    }
+  }
+
+  /** Removes all ants, keeping the table. */
+  void clear() {
+    Arrays.fill(positions, FREE);
+    Arrays.fill(counts, 0);
+    Arrays.fill(ants, null);
+    size = 0;
+  }
+
+  /**
+   * Returns the first ant added on the given cell or {@code null} if there is none.
+   *
+   * @param x the x-Coordinate
+   * @param y the y-Coordinate
+   */
+  Ant get(int x, int y) {
+    final int slot = find(pack(x, y));
+    return slot < 0 ? null : ants[slot];
+  }
+
+  /**
+   * Returns the number of ants on the given cell.
+   *
+   * @param x the x-Coordinate
+   * @param y the y-Coordinate
+   */
+  int count(int x, int y) {
+    final int slot = find(pack(x, y));
+    return slot < 0 ? 0 : counts[slot];
+  }
+
+  /**
+   * Returns the number of ants inside of a rectangle. Either every cell of the rectangle or every
+   * slot is visited, whichever is less.
+   *
+   * @param x the x-Coordinate of the left column
+   * @param y the y-Coordinate of the top row
+   * @param width the number of columns
+   * @param height the number of rows
+   */
+  int count(int x, int y, int width, int height) {
+    int count = 0;
+    if ((long) width * height <= positions.length) {
+      for (int row = y; row < y + height; row++) {
+        for (int column = x; column < x + width; column++) {
+          count += count(column, row);
+        }
+      }
+      return count;
+    }
+
+    for (int slot = 0; slot < positions.length; slot++) {
+      final long position = positions[slot];
+      if (position != FREE) {
+        final int column = (int) (position >> 32);
+        final int row = (int) position;
+        if (column >= x && column < x + width && row >= y && row < y + height) {
+          count += counts[slot];
+        }
+      }
+    }
+    return count;
+  }
+
+}
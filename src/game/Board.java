@@ -1,7 +1,13 @@
 package game;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -11,15 +17,13 @@ import java.util.Map;
  */
 public class Board implements Grid {
 
-  // integer representation of where the ant has to turn
-  // this should actually be an enum, especially if more moves are added
-  private static final int TURN_RIGHT = 0;
-  private static final int TURN_LEFT = 1;
+  // size in bytes of a saved move, see MoveHistory
+  private static final int SAVED_MOVE_SIZE = 12;
 
   /**
-   * The grid i.e. the actual board.
+   * The grid i.e. the actual board, stores the state of each cell.
    */
-  private Cell[][] grid;
+  private StateGrid grid;
 
   /**
    * The ant.
@@ -32,14 +36,109 @@ public class Board implements Grid {
   private int stepCount;
 
   /**
-   * Saves the configuration i.e. where the ant turns at which state.
+   * The state configuration the {@code Board} was created with e.g. "RL".
    */
-  private Map<Integer, Integer> whereToTurn;
+  private final String rule;
+
+  /**
+   * The number of states (colors) a cell can take.
+   */
+  private final int colors;
+
+  /**
+   * Saves whether the rule is a classic ant, which turns after entering a cell instead of before
+   * leaving it.
+   */
+  private final boolean classic;
+
+  /**
+   * Saves the configuration i.e. the packed transitions of the rule, indexed by
+   * {@code antState * colors + cellState}.
+   */
+  private final int[] transitions;
+
+  /**
+   * The step loop specialised for the rule, {@code null} if the generic loop has to be used.
+   */
+  private StepKernel kernel;
 
   /**
    * Saves the moves the ant made.
    */
-  private List<Ant> antMoves;
+  private MoveHistory antMoves;
+
+  /**
+   * Saves the number of cells in each state, indexed by the state.
+   */
+  private int[] population;
+
+  /**
+   * Saves the Zobrist hash of the states of all cells.
+   */
+  private long cellsHash;
+
+  /**
+   * Saves the visits of every cell, {@code null} if visits are not tracked.
+   */
+  private VisitMap visits;
+
+  /**
+   * Streams the moves of the ant into a file, {@code null} if no journal is written.
+   */
+  private TrajectoryJournal journal;
+
+  /**
+   * The journal file holding the saved moves from {@code journalIndex} on, {@code null} if all
+   * saved moves are in {@code antMoves}. While a journal is written no moves are added to
+   * {@code antMoves}, resetting replays them from the file instead.
+   */
+  private Path journalFile;
+
+  /**
+   * The index of the first saved move in the journal file, i.e. the number of saved moves before.
+   */
+  private int journalIndex;
+
+  /**
+   * The number of saved moves in the journal file, only updated once the journal is closed.
+   */
+  private int journalLength;
+
+  /**
+   * The number of the first step recorded in the journal file.
+   */
+  private int journalStep;
+
+  /**
+   * The ant before the first move in the journal file.
+   */
+  private Ant journalAnt;
+
+  /**
+   * Writes checkpoints of this {@code Board}, {@code null} if no checkpoints are written.
+   */
+  private CheckpointWriter checkpoints;
+
+  /**
+   * Counts the cells in each state inside of rectangles, {@code null} if rectangles are counted
+   * cell by cell.
+   */
+  private RegionIndex index;
+
+  /**
+   * The cells the saved moves start from, {@code null} if they start from an empty grid.
+   */
+  private StateGrid origin;
+
+  /**
+   * The ant the saved moves start from.
+   */
+  private Ant originAnt;
+
+  /**
+   * The number of steps before the first saved move.
+   */
+  private int originStep;
 
   /**
    * Creates a new {@code Board} and initializes all cells.
@@ -47,32 +146,219 @@ public class Board implements Grid {
    * @param width non-negative width of the {@code Board}.
    * @param height non-negative height of the {@code Board}
    * @param states the state configuration i.e. where the ant turns at which state (min 2 max 12
-   *        states), currently only R and L are allowed
+   *        states), either in classic notation (R and L) or in turmite notation, see {@code Rule}
+   * @throws IllegalArgumentException if the state configuration is invalid
    */
   private Board(int width, int height, String states) {
     // initialize an empty grid
-    this.grid = new Cell[width][height];
-    for (int i = 0; i < width; i++) {
-      for (int j = 0; j < height; j++) {
-        grid[i][j] = AntCell.create();
-      }
-    }
+    this.grid = new StateGrid(width, height);
 
     ant = null;
     stepCount = 0;
-    whereToTurn = new HashMap<Integer, Integer>();
-
-    for (int i = 0; i < states.length(); i++) {
-      // to add more moves (e.g. step forward, turn around, etc.) edit this if-else-statement
-      whereToTurn.put(i, states.charAt(i) == 'R' ? TURN_RIGHT : TURN_LEFT);
-    }
-    antMoves = new LinkedList<>();
+    rule = states;
+    final Rule parsedRule = Rule.parse(states);
+    colors = parsedRule.getColors();
+    classic = parsedRule.isClassic();
+    transitions = parsedRule.getTransitions();
+    kernel = StepKernels.forRule(parsedRule);
+
+    antMoves = new MoveHistory();
+    population = new int[colors];
+    population[0] = width * height;
+    cellsHash = 0;
+    visits = null;
+    journal = null;
+    journalFile = null;
+    checkpoints = null;
+    index = null;
+    origin = null;
+    originAnt = null;
+    originStep = 0;
   }
 
   public static Board create(int width, int height, String states) {
     return new Board(width, height, states);
   }
 
+  /**
+   * Writes the rule, the size, the number of steps, the ant and all cells of this {@code Board}.
+   * The saved moves are not written.
+   * 
+   * <p>Format (big-endian): the rule (modified UTF-8), the width, the height and the number of
+   * steps (each as int), a flag whether there is an ant followed by its x- and y-Coordinate, the
+   * index of its orientation and its state (each as int), and the cells, see
+   * {@code StateGrid.write}.
+   * 
+   * @param out the output the snapshot is written to
+   * @throws IOException if writing fails
+   */
+  void writeSnapshot(DataOutput out) throws IOException {
+    out.writeUTF(rule);
+    out.writeInt(getWidth());
+    out.writeInt(getHeight());
+    out.writeInt(stepCount);
+    out.writeBoolean(ant != null);
+    if (ant != null) {
+      out.writeInt(ant.getX());
+      out.writeInt(ant.getY());
+      out.writeInt(ant.getOrientation().ordinal());
+      out.writeInt(ant.getState());
+    }
+    grid.write(out);
+  }
+
+  /**
+   * Reads a snapshot written by {@code writeSnapshot}. The snapshot is the origin of the returned
+   * {@code Board}, thus it can be reset to the step of the snapshot but not further.
+   * 
+   * @param in the input the snapshot is read from
+   * @return the newly created {@code Board}
+   * @throws IOException if reading fails or the snapshot is invalid
+   */
+  static Board readSnapshot(DataInput in) throws IOException {
+    final String states = in.readUTF();
+    final int width = in.readInt();
+    final int height = in.readInt();
+    final int steps = in.readInt();
+    if (!Rule.isValid(states) || width <= 0 || height <= 0 || steps < 0) {
+      throw new IOException("Invalid snapshot");
+    }
+    final Board board = new Board(width, height, states);
+    if (in.readBoolean()) {
+      final int x = in.readInt();
+      final int y = in.readInt();
+      final int orientation = in.readInt();
+      final int state = in.readInt();
+      if (x < 0 || y < 0 || x >= width || y >= height || orientation < 0 || orientation > 3
+          || state < 0 || state * board.colors >= board.transitions.length) {
+        throw new IOException("Invalid snapshot");
+      }
+      board.ant = Ant.create(x, y, orientation, state);
+    }
+    board.grid = StateGrid.read(in, width, height);
+    board.rescanCells();
+    // cells in states the rule does not have are not counted
+    long cells = 0;
+    for (final int count : board.population) {
+      cells += count;
+    }
+    if (cells != (long) width * height) {
+      throw new IOException("Invalid snapshot");
+    }
+    board.stepCount = steps;
+    board.markOrigin();
+    return board;
+  }
+
+  /**
+   * Takes a checkpoint of this {@code Board}. The cells are forked and the saved moves are copied,
+   * thus the checkpoint does not change when this {@code Board} continues. If some saved moves are
+   * only in a journal file, the checkpoint is its own origin i.e. it has no saved moves.
+   * 
+   * @return the checkpoint
+   */
+  Checkpoint checkpoint() {
+    if (journalFile != null) {
+      return new Checkpoint(rule, stepCount, ant == null ? null : Ant.copyOf(ant), grid.fork(),
+          grid.fork(), ant == null ? null : Ant.copyOf(ant), stepCount, new int[0]);
+    }
+    // only the moves of the rounds since the origin can be replayed
+    return new Checkpoint(rule, stepCount, ant == null ? null : Ant.copyOf(ant), grid.fork(),
+        origin == null ? null : origin.fork(), originAnt == null ? null : Ant.copyOf(originAnt),
+        originStep, antMoves.toArray(Math.min(stepCount - originStep, antMoves.size())));
+  }
+
+  /**
+   * Creates a {@code Board} from the newest valid checkpoint in a directory, see
+   * {@code startCheckpoints}. The returned {@code Board} continues exactly where the checkpoint was
+   * taken, including its saved moves.
+   * 
+   * @param directory the directory containing the checkpoints
+   * @return the newly created {@code Board}
+   * @throws IOException if there is no valid checkpoint
+   */
+  public static Board resume(Path directory) throws IOException {
+    final Checkpoint checkpoint = CheckpointWriter.readNewest(directory);
+    final Board board = new Board(checkpoint.grid.getWidth(), checkpoint.grid.getHeight(),
+        checkpoint.rule);
+    board.grid = checkpoint.grid;
+    board.rescanCells();
+    board.ant = checkpoint.ant;
+    board.stepCount = checkpoint.stepCount;
+    board.origin = checkpoint.origin;
+    board.originAnt = checkpoint.originAnt;
+    board.originStep = checkpoint.originStep;
+    final int[] moves = checkpoint.moves;
+    for (int i = 0; i < moves.length; i += 4) {
+      board.antMoves.add(moves[i], moves[i + 1], moves[i + 2], moves[i + 3]);
+    }
+    return board;
+  }
+
+  @Override
+  public Grid fork() {
+    return fork(rule);
+  }
+
+  @Override
+  public Grid fork(String states) {
+    final Board fork = new Board(getWidth(), getHeight(), states);
+    for (int state = fork.colors; state < colors; state++) {
+      if (population[state] != 0) {
+        throw new IllegalArgumentException("Cells in states the rule does not have");
+      }
+    }
+    if (ant != null && ant.getState() * fork.colors >= fork.transitions.length) {
+      throw new IllegalArgumentException("Ant in a state the rule does not have");
+    }
+
+    fork.grid = grid.fork();
+    fork.ant = ant == null ? null : Ant.copyOf(ant);
+    fork.stepCount = stepCount;
+    System.arraycopy(population, 0, fork.population, 0, Math.min(colors, fork.colors));
+    fork.cellsHash = cellsHash;
+    if (kernel == null) {
+      // the generic loop might have been chosen on purpose
+      fork.kernel = null;
+    }
+    if (index != null) {
+      fork.index = new RegionIndex(fork.grid, fork.colors);
+    }
+    fork.markOrigin();
+    return fork;
+  }
+
+  @Override
+  public void setState(int x, int y, int state) {
+    if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+      throw new IndexOutOfBoundsException("Cell out of range");
+    } else if (state < 0 || state >= colors) {
+      throw new IllegalArgumentException("Invalid state");
+    }
+    endJournal();
+    final int previousState = grid.get(x, y);
+    grid.set(x, y, state);
+    cellsHash ^= Zobrist.cellKey(x, y, previousState) ^ Zobrist.cellKey(x, y, state);
+    population[previousState]--;
+    population[state]++;
+    if (index != null) {
+      index.update(x, y, previousState, state);
+    }
+    markOrigin();
+  }
+
+  /**
+   * Makes the current cells and ant the origin of the saved moves, i.e. the {@code Board} cannot be
+   * reset any further. The origin shares all chunks with the grid.
+   */
+  private void markOrigin() {
+    origin = grid.fork();
+    originAnt = ant == null ? null : Ant.copyOf(ant);
+    originStep = stepCount;
+    antMoves.clear();
+    journalFile = null;
+  }
+
   @Override
   public void setAnt(Ant object, int col, int row) {
     ant = object;
@@ -87,6 +373,17 @@ public class Board implements Grid {
     return ants;
   }
 
+  @Override
+  public Ant getAnt(int x, int y) {
+    return ant != null && ant.getX() == x && ant.getY() == y ? ant : null;
+  }
+
+  @Override
+  public int countAnts(int x, int y, int width, int height) {
+    return ant != null && ant.getX() >= x && ant.getX() - x < width && ant.getY() >= y
+        && ant.getY() - y < height ? 1 : 0;
+  }
+
   @Override
   public void clearAnts() {
     ant = null;
@@ -99,13 +396,113 @@ public class Board implements Grid {
 
   @Override
   public void performStep(int number) {
+    StepBatchEvent event = new StepBatchEvent();
+    event.begin();
+    advance(number);
+    event.end();
+    if (event.shouldCommit()) {
+      event.describe(this);
+      event.steps = number;
+      event.commit();
+    }
+  }
+
+  @Override
+  public boolean performStepsUntil(StepPredicate condition, int maximum) {
+    if (ant == null) {
+      throw new IllegalStateException("No ant existing");
+    } else if (maximum < 0) {
+      throw new IllegalArgumentException("Negative number of rounds");
+    }
+    condition.check(getWidth(), getHeight(), colors);
+
+    StepBatchEvent event = new StepBatchEvent();
+    event.begin();
+    final int start = stepCount;
+    final int captured = condition.capture(grid);
+    boolean reached = false;
+    int remaining = maximum;
+    while (!reached && remaining > 0) {
+      final int batch = Math.min(remaining, condition.horizon(grid, ant, stepCount, population));
+      advance(batch);
+      remaining -= batch;
+      reached = condition.isReached(grid, ant, stepCount, population, captured);
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.describe(this);
+      event.steps = stepCount - start;
+      event.commit();
+    }
+    return reached;
+  }
+
+  /** Computes the specified number of rounds and writes the checkpoints due in between. */
+  private void advance(int number) {
+    // while a journal is written the moves are saved in its file only
+    final MoveHistory history = journal == null ? antMoves : null;
+    if (checkpoints == null) {
+      computeSteps(number, history);
+      return;
+    }
+    // stop at every step a checkpoint may be due at
+    int remaining = number;
+    while (remaining > 0) {
+      final int batch = Math.min(remaining, checkpoints.stepsUntilDue(stepCount));
+      computeSteps(batch, history);
+      remaining -= batch;
+      try {
+        checkpoints.afterSteps(this);
+      } catch (UncheckedIOException e) {
+        // no further checkpoints are taken after a failure
+        checkpoints = null;
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Computes the specified number of rounds without emitting any events. The moves are saved into
+   * the given history, which is {@code null} if they are not saved.
+   */
+  private void computeSteps(int number, MoveHistory history) {
+    if (kernel != null && history != null && visits == null && journal == null
+        && index == null) {
+      cellsHash = kernel.computeSteps(grid, ant, population, history, cellsHash, number);
+      stepCount += number;
+      return;
+    }
+
     for (int i = 0; i < number; i++) {
       // save the current ant
-      antMoves.add(Ant.copyOf(ant));
+      if (history != null) {
+        history.add(ant);
+      }
       // switch the state of the cell where the ant currently is
-      Cell antPosition = grid[ant.getX()][ant.getY()];
-      ((AntCell) antPosition).switchToNextState(getNumberOfStates());
+      final int antX = ant.getX();
+      final int antY = ant.getY();
+      if (visits != null) {
+        visits.visit(antX, antY, stepCount + i);
+      }
+      final int state = grid.get(antX, antY);
+      final int transition = transitions[ant.getState() * colors + state];
+      if (!classic) {
+        // turmites turn before leaving the cell
+        ant.turn(Rule.turn(transition));
+        ant.setState(Rule.newAntState(transition));
+      }
+      final int nextState = Rule.newColor(transition);
+      grid.set(antX, antY, nextState);
+      cellsHash ^= Zobrist.cellKey(antX, antY, state) ^ Zobrist.cellKey(antX, antY, nextState);
+      population[state]--;
+      population[nextState]++;
+      if (index != null) {
+        index.update(antX, antY, state, nextState);
+      }
       // move the ant by one step
+      if (journal != null) {
+        journal.record(ant.getOrientation());
+      }
       ant.move();
 
       // calculate the torus
@@ -118,12 +515,9 @@ public class Board implements Grid {
         ant.setY(ant.getY() % getHeight());
       }
 
-      // turn the ant to the correct direction
-      antPosition = grid[ant.getX()][ant.getY()];
-      if (whereToTurn.get(antPosition.getState()) == TURN_RIGHT) {
-        ant.turnRight();
-      } else {
-        ant.turnLeft();
+      // classic ants turn to the correct direction after entering the cell
+      if (classic) {
+        ant.turn(Rule.turn(transitions[grid.get(ant.getX(), ant.getY())]));
       }
     }
     stepCount += number;
@@ -131,54 +525,191 @@ public class Board implements Grid {
 
   @Override
   public void reset(int number) {
-    int temp = stepCount - number;
-    clear();
+    RewindEvent event = new RewindEvent();
+    event.begin();
+    rewind(number);
+    event.end();
+    if (event.shouldCommit()) {
+      event.describe(this);
+      event.steps = number;
+      event.commit();
+    }
+  }
 
-    for (int i = 0; i < temp; i++) {
-      ant = Ant.copyOf(antMoves.get(i));
-      final int antX = ant.getX();
-      final int antY = ant.getY();
+  /**
+   * Resets the {@code Board} by the given number of rounds by replaying the saved moves. The
+   * {@code Board} cannot be reset further than to its origin.
+   */
+  private void rewind(int number) {
+    endJournal();
+    int temp = Math.max(0, stepCount - number - originStep);
+    restoreOrigin();
+    try {
+      replay(temp);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
 
-      if (antX < getWidth() && antY < getHeight()) {
-        performStep(1);
+    if (journalFile != null && temp > journalIndex) {
+      if (temp <= journalIndex + journalLength) {
+        // the rest of the journal and all moves after it are discarded
+        antMoves.truncate(journalIndex);
+        journalLength = temp - journalIndex;
+      } else {
+        antMoves.truncate(temp - journalLength);
+      }
+    } else {
+      journalFile = null;
+      if (origin != null) {
+        // the ant of the origin is restored, thus a full reset keeps no move
+        antMoves.truncate(Math.min(temp, antMoves.size()));
       } else {
-        // ant is out of range thus the move must not be computed
-        stepCount++;
+        antMoves.truncate(Math.min(temp < 1 ? 1 : temp, antMoves.size()));
       }
     }
-    antMoves.subList(temp < 1 ? 1 : temp, antMoves.size()).clear();
+  }
+
+  /**
+   * Computes the given number of saved moves from the origin without saving them again. The moves
+   * in the journal file are replayed by a {@code TrajectoryReader}.
+   */
+  private void replay(int number) throws IOException {
+    final int journalEnd = journalFile == null ? 0 : journalIndex + journalLength;
+    TrajectoryReader reader = null;
+    try {
+      for (int i = 0; i < number; i++) {
+        if (i >= journalIndex && i < journalEnd) {
+          if (reader == null) {
+            reader = TrajectoryReader.open(journalFile);
+            reader.seek(journalStep + i - journalIndex);
+            ant = Ant.copyOf(journalAnt);
+          }
+          // the journal only holds the positions, the orientation and the state are computed
+          ant.setX(reader.getX());
+          ant.setY(reader.getY());
+          reader.next();
+          computeSteps(1, null);
+          continue;
+        }
+
+        ant = antMoves.get(journalFile == null || i < journalIndex ? i : i - journalLength);
+        final int antX = ant.getX();
+        final int antY = ant.getY();
+
+        if (antX < getWidth() && antY < getHeight()) {
+          computeSteps(1, null);
+        } else {
+          // ant is out of range thus the move must not be computed
+          stepCount++;
+        }
+      }
+    } finally {
+      if (reader != null) {
+        reader.close();
+      }
+    }
+  }
+
+  /** Sets the cells, the ant and the number of steps back to the origin of the saved moves. */
+  private void restoreOrigin() {
+    if (origin == null) {
+      clearGrid();
+      return;
+    }
+    grid = origin.fork();
+    rescanCells();
+    if (visits != null) {
+      visits = new VisitMap(getWidth(), getHeight());
+    }
+    ant = originAnt == null ? null : Ant.copyOf(originAnt);
+    stepCount = originStep;
   }
 
   @Override
   public int getWidth() {
-    return grid.length;
+    return grid.getWidth();
   }
 
   @Override
   public int getHeight() {
-    return grid[0].length;
+    return grid.getHeight();
   }
 
   @Override
   public List<Cell> getColumn(int i) {
-    List<Cell> column = new LinkedList<Cell>();
-    for (int j = 0; j < getWidth(); j++) {
-      column.add(grid[i][j]);
+    List<Cell> column = new ArrayList<Cell>(getHeight());
+    for (int j = 0; j < getHeight(); j++) {
+      column.add(AntCell.create(grid.get(i, j)));
     }
     return column;
   }
 
   @Override
   public List<Cell> getRow(int j) {
-    List<Cell> row = new LinkedList<Cell>();
+    List<Cell> row = new ArrayList<Cell>(getWidth());
     for (int i = 0; i < getWidth(); i++) {
-      row.add(grid[i][j]);
+      row.add(AntCell.create(grid.get(i, j)));
     }
     return row;
   }
 
+  @Override
+  public int getState(int x, int y) {
+    return grid.get(x, y);
+  }
+
+  @Override
+  public int getRunLength(int x, int y) {
+    return grid.runLength(x, y);
+  }
+
+  @Override
+  public boolean hasEqualCells(Grid other) {
+    if (other instanceof Board) {
+      return grid.contentEquals(((Board) other).grid);
+    }
+    return getWidth() == other.getWidth() && getHeight() == other.getHeight()
+        && countDifferences(other) == 0;
+  }
+
+  @Override
+  public long countDifferences(Grid other) {
+    if (other instanceof Board) {
+      return grid.countDifferences(((Board) other).grid);
+    } else if (getWidth() != other.getWidth() || getHeight() != other.getHeight()) {
+      throw new IllegalArgumentException("Different grid sizes");
+    }
+
+    long differences = 0;
+    for (int y = 0; y < getHeight(); y++) {
+      for (int x = 0; x < getWidth(); x++) {
+        if (grid.get(x, y) != other.getState(x, y)) {
+          differences++;
+        }
+      }
+    }
+    return differences;
+  }
+
   @Override
   public void resize(int columns, int rows) {
+    ResizeEvent event = new ResizeEvent();
+    event.begin();
+    final int previousWidth = getWidth();
+    final int previousHeight = getHeight();
+    resizeGrid(columns, rows);
+    event.end();
+    if (event.shouldCommit()) {
+      event.describe(this);
+      event.previousWidth = previousWidth;
+      event.previousHeight = previousHeight;
+      event.commit();
+    }
+  }
+
+  /** Changes the size of the grid without emitting any events. */
+  private void resizeGrid(int columns, int rows) {
+    endJournal();
     if (columns < getWidth() && rows < getHeight()) {
       grid = downsizeGrid(columns, rows);
     } else if (columns >= getWidth() && rows >= getHeight()) {
@@ -189,24 +720,29 @@ public class Board implements Grid {
           rows > getHeight() ? rows : getHeight());
       grid = downsizeGrid(columns, rows);
     }
+    rescanCells();
+    if (journalFile != null) {
+      // the journal holds the positions before resizing, thus it cannot be replayed any more
+      markOrigin();
+    }
+  }
+
+  /** Recounts the number of cells in each state and rehashes all cells. */
+  private void rescanCells() {
+    grid.countStates(population);
+    cellsHash = grid.hashCells();
+    if (index != null) {
+      index = new RegionIndex(grid, colors);
+    }
   }
 
   /** Returns a downsized grid and adjusts the position of the ant. */
-  private Cell[][] downsizeGrid(int columns, int rows) {
-    Cell[][] downsizedGrid = new Cell[columns][rows];
+  private StateGrid downsizeGrid(int columns, int rows) {
     int xAxisShift = (getWidth() - columns) / 2;
     int yAxisShift = (getHeight() - rows) / 2;
 
     // adjust the grid
-    for (int x = 0; x < columns; x++) {
-      for (int y = 0; y < rows; y++) {
-        if (y < getWidth() && x < getHeight()) {
-          downsizedGrid[x][y] = grid[x + xAxisShift][y + yAxisShift];
-        } else {
-          downsizedGrid[x][y] = AntCell.create();
-        }
-      }
-    }
+    StateGrid downsizedGrid = grid.translate(columns, rows, -xAxisShift, -yAxisShift);
 
     // adjust the position of the ant
     if (ant != null) {
@@ -226,37 +762,36 @@ public class Board implements Grid {
     }
 
     // adjust all previous moves from the ant
-    for (Ant a : antMoves) {
-      a.setX(a.getX() - xAxisShift);
-      a.setY(a.getY() - yAxisShift);
+    antMoves.translate(-xAxisShift, -yAxisShift);
+
+    // adjust the origin of the moves
+    if (origin != null) {
+      origin = origin.translate(columns, rows, -xAxisShift, -yAxisShift);
+      if (originAnt != null && (originAnt.getX() >= columns + xAxisShift
+          || originAnt.getX() < xAxisShift || originAnt.getY() >= rows + yAxisShift
+          || originAnt.getY() < yAxisShift)) {
+        originAnt = null;
+      } else if (originAnt != null) {
+        originAnt.setX(originAnt.getX() - xAxisShift);
+        originAnt.setY(originAnt.getY() - yAxisShift);
+      }
+    }
+
+    // adjust the tracked visits
+    if (visits != null) {
+      visits = visits.translate(columns, rows, -xAxisShift, -yAxisShift);
     }
     return downsizedGrid;
   }
 
   /** Returns an expanded grid and adjusts the position of the ant. */
-  private Cell[][] expandGrid(int cols, int rows) {
-    Cell[][] expandedGrid = new Cell[cols][rows];
-    // recalculated indices to insert the old smaller board into the expanded
+  private StateGrid expandGrid(int cols, int rows) {
+    // the old smaller board is inserted into the center of the expanded
     int xAxisShift = (cols - getWidth()) / 2;
-    int shiftedLargestxAxisIndex = (cols + getWidth()) / 2;
     int yAxisShift = (rows - getHeight()) / 2;
-    int shiftedLargestyAxisIndex = (rows + getHeight()) / 2;
 
     // adjust the grid
-    for (int x = 0; x < cols; x++) {
-      for (int y = 0; y < rows; y++) {
-        boolean xCoordinateIsInRange = x >= xAxisShift && x < shiftedLargestxAxisIndex;
-        boolean yCoordinateIsInRange = y >= yAxisShift && y < shiftedLargestyAxisIndex;
-        boolean currentPositionHasToBeInsertedFromOldGrid =
-            xCoordinateIsInRange && yCoordinateIsInRange;
-
-        if (currentPositionHasToBeInsertedFromOldGrid) {
-          expandedGrid[x][y] = grid[x - xAxisShift][y - yAxisShift];
-        } else {
-          expandedGrid[x][y] = AntCell.create();
-        }
-      }
-    }
+    StateGrid expandedGrid = grid.translate(cols, rows, xAxisShift, yAxisShift);
 
     // adjust the position of the ant
     if (ant != null) {
@@ -265,22 +800,57 @@ public class Board implements Grid {
     }
 
     // adjust all previous moves from the ant
-    for (Ant a : antMoves) {
-      a.setX(a.getX() + xAxisShift);
-      a.setY(a.getY() + yAxisShift);
+    antMoves.translate(xAxisShift, yAxisShift);
+
+    // adjust the origin of the moves
+    if (origin != null) {
+      origin = origin.translate(cols, rows, xAxisShift, yAxisShift);
+      if (originAnt != null) {
+        originAnt.setX(originAnt.getX() + xAxisShift);
+        originAnt.setY(originAnt.getY() + yAxisShift);
+      }
+    }
+
+    // adjust the tracked visits
+    if (visits != null) {
+      visits = visits.translate(cols, rows, xAxisShift, yAxisShift);
     }
     return expandedGrid;
   }
 
   @Override
   public void clear() {
-    for (int i = 0; i < getWidth(); i++) {
-      for (int j = 0; j < getHeight(); j++) {
-        grid[i][j] = AntCell.create();
-      }
+    ClearEvent event = new ClearEvent();
+    event.begin();
+    final int clearedSteps = stepCount;
+    clearGrid();
+    journalFile = null;
+    event.end();
+    if (event.shouldCommit()) {
+      event.describe(this);
+      event.clearedSteps = clearedSteps;
+      event.commit();
+    }
+  }
+
+  /** Resets all cells and deletes the ant without emitting any events. */
+  private void clearGrid() {
+    endJournal();
+    grid.clear();
+    cellsHash = 0;
+    Arrays.fill(population, 0);
+    population[0] = getWidth() * getHeight();
+    if (visits != null) {
+      visits = new VisitMap(getWidth(), getHeight());
+    }
+    if (index != null) {
+      index = new RegionIndex(grid, colors);
     }
     ant = null;
     stepCount = 0;
+    origin = null;
+    originAnt = null;
+    originStep = 0;
   }
 
   @Override
@@ -288,9 +858,134 @@ public class Board implements Grid {
     return stepCount;
   }
 
-  /** Returns the number of states. */
-  int getNumberOfStates() {
-    return whereToTurn.size();
+  @Override
+  public int getPopulation(int state) {
+    return population[state];
+  }
+
+  @Override
+  public int getNumberOfStates() {
+    return colors;
+  }
+
+  @Override
+  public int getPopulation(int state, int x, int y, int width, int height) {
+    if (x < 0 || y < 0 || width < 0 || height < 0 || x > getWidth() - width
+        || y > getHeight() - height) {
+      throw new IndexOutOfBoundsException("Region out of range");
+    }
+    if (index != null) {
+      return index.count(grid, state, x, y, width, height);
+    }
+    return RegionIndex.countCells(grid, state, x, y, x + width, y + height);
+  }
+
+  @Override
+  public void setRegionIndex(boolean enabled) {
+    if (!enabled) {
+      index = null;
+    } else if (index == null) {
+      index = new RegionIndex(grid, colors);
+    }
+  }
+
+  @Override
+  public long getHash() {
+    return cellsHash ^ Zobrist.antKey(ant);
+  }
+
+  @Override
+  public void setVisitTracking(boolean enabled) {
+    if (!enabled) {
+      visits = null;
+    } else if (visits == null) {
+      visits = new VisitMap(getWidth(), getHeight());
+    }
+  }
+
+  @Override
+  public VisitMap getVisitMap() {
+    return visits;
+  }
+
+  @Override
+  public void startJournal(Path file) throws IOException {
+    if (ant == null) {
+      throw new IllegalStateException("No ant existing");
+    }
+    stopJournal();
+    if (journalFile != null) {
+      // only the moves of one journal file can be replayed
+      markOrigin();
+    }
+    journal = TrajectoryJournal.create(file, getWidth(), getHeight(), stepCount, ant.getX(),
+        ant.getY());
+    journalFile = file.toAbsolutePath();
+    journalIndex = antMoves.size();
+    journalLength = 0;
+    journalStep = stepCount;
+    journalAnt = Ant.copyOf(ant);
+  }
+
+  @Override
+  public void stopJournal() throws IOException {
+    if (journal != null) {
+      final TrajectoryJournal finished = journal;
+      journal = null;
+      journalLength = stepCount - journalStep;
+      finished.close();
+    }
+  }
+
+  @Override
+  public void startCheckpoints(Path directory, int stepInterval, long timeInterval)
+      throws IOException {
+    stopCheckpoints();
+    checkpoints = CheckpointWriter.create(directory, stepInterval, timeInterval, stepCount);
+  }
+
+  @Override
+  public void stopCheckpoints() throws IOException {
+    if (checkpoints != null) {
+      final CheckpointWriter finished = checkpoints;
+      checkpoints = null;
+      finished.close(this);
+    }
+  }
+
+  /**
+   * Stops writing the journal because the recorded trajectory does not continue, e.g. the board is
+   * rewound or resized.
+   */
+  private void endJournal() {
+    try {
+      stopJournal();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Enables or disables the step loop specialised for the rule, e.g. to compare it with the
+   * generic loop.
+   * 
+   * @param enabled {@code true} to use the specialised loop if there is one for the rule
+   */
+  void setKernelEnabled(boolean enabled) {
+    kernel = enabled ? StepKernels.forRule(Rule.parse(rule)) : null;
+  }
+
+  /**
+   * Returns an estimate of the memory used by the cells, the origin and the saved moves in bytes.
+   */
+  long estimateMemoryUsage() {
+    return grid.getAllocatedBytes() + (origin == null ? 0 : origin.getAllocatedBytes())
+        + (long) antMoves.size() * SAVED_MOVE_SIZE;
+  }
+
+  @Override
+  public String getRule() {
+    return rule;
   }
 
 }
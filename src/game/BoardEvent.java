@@ -0,0 +1,33 @@
+package game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+
+/**
+ * Base class for all Java Flight Recorder events emitted by a {@code Board}. Stores the dimensions
+ * and the state configuration of the board the event belongs to.
+ */
+@Category({"Langton's Ant", "Board"})
+abstract class BoardEvent extends jdk.jfr.Event {
+
+  @Label("Width")
+  int width;
+
+  @Label("Height")
+  int height;
+
+  @Label("Rule")
+  String rule;
+
+  @Label("Step Count")
+  int stepCount;
+
+  /** Copies the dimensions, the rule and the step count of the given {@code Board}. */
+  void describe(Board board) {
+    width = board.getWidth();
+    height = board.getHeight();
+    rule = board.getRule();
+    stepCount = board.getStepCount();
+  }
+
+}
@@ -0,0 +1,61 @@
+package game;
+
+import java.util.Map;
+
+/**
+ * Read-only access to the cells and ants of a board, e.g. to print it.
+ */
+public interface CellView {
+
+  /**
+   * Returns the width (x-Dimension) of the board.
+   */
+  int getWidth();
+
+  /**
+   * Returns the height (y-Dimension) of the board.
+   */
+  int getHeight();
+
+  /**
+   * Returns the state of the cell at the given coordinates.
+   * 
+   * @param x the x-Coordinate
+   * @param y the y-Coordinate
+   */
+  int getState(int x, int y);
+
+  /**
+   * Returns the number of consecutive cells in the row y, starting at the x-Coordinate x, that are
+   * in the same state as the cell (x, y). The result is at least 1.
+   * 
+   * @param x the x-Coordinate of the first cell
+   * @param y the y-Coordinate
+   */
+  int getRunLength(int x, int y);
+
+  /**
+   * Returns all ants that are currently on the board.
+   */
+  Map<Coordinate, Ant> getAnts();
+
+  /**
+   * Returns the ant on the cell at the given coordinates or {@code null} if there is none. If
+   * several ants share the cell one of them is returned. Unlike {@code getAnts()} this does not
+   * allocate any objects.
+   * 
+   * @param x the x-Coordinate
+   * @param y the y-Coordinate
+   */
+  Ant getAnt(int x, int y);
+
+  /**
+   * Returns the number of ants inside of a rectangle.
+   * 
+   * @param x the x-Coordinate of the left column of the rectangle
+   * @param y the y-Coordinate of the top row of the rectangle
+   * @param width the number of columns of the rectangle
+   * @param height the number of rows of the rectangle
+   */
+  int countAnts(int x, int y, int width, int height);
+}
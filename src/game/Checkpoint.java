@@ -0,0 +1,167 @@
+package game;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A consistent copy of everything a {@code Board} needs to continue, i.e. the cells, the ant, the
+ * number of steps and the saved moves with their origin. Taking a checkpoint forks the cells, thus
+ * it only costs one reference per chunk and the saved moves packed into an array, and the board can
+ * continue while the checkpoint is written.
+ *
+ * <p>Format (big-endian): the rule (modified UTF-8), the width, the height and the number of steps
+ * (each as int), the ant, the cells (see {@code StateGrid.write}), a flag whether there is an
+ * origin followed by its cells, the ant of the origin, the number of steps of the origin (int), the
+ * number of saved moves (int), which is the number of steps since the origin, and the saved moves
+ * as ants without their flag. An ant is stored as a flag
+ * whether it exists followed by its x- and y-Coordinate, the index of its orientation and its state
+ * (each as int).
+ */
+final class Checkpoint {
+
+  final String rule;
+
+  final int stepCount;
+
+  /**
+   * The ant, {@code null} if there is none.
+   */
+  final Ant ant;
+
+  final StateGrid grid;
+
+  /**
+   * The cells the saved moves start from, {@code null} for an empty grid.
+   */
+  final StateGrid origin;
+
+  /**
+   * The ant the saved moves start from, {@code null} if there is none.
+   */
+  final Ant originAnt;
+
+  final int originStep;
+
+  /**
+   * The saved moves, four ints per move as written for an ant.
+   */
+  final int[] moves;
+
+  /**
+   * Creates a new {@code Checkpoint}, nothing is copied.
+   */
+  Checkpoint(String rule, int stepCount, Ant ant, StateGrid grid, StateGrid origin, Ant originAnt,
+      int originStep, int[] moves) {
+    this.rule = rule;
+    this.stepCount = stepCount;
+    this.ant = ant;
+    this.grid = grid;
+    this.origin = origin;
+    this.originAnt = originAnt;
+    this.originStep = originStep;
+    this.moves = moves;
+  }
+
+  /**
+   * Writes this checkpoint.
+   *
+   * @param out the output the checkpoint is written to
+   * @throws IOException if writing fails
+   */
+  void write(DataOutput out) throws IOException {
+    out.writeUTF(rule);
+    out.writeInt(grid.getWidth());
+    out.writeInt(grid.getHeight());
+    out.writeInt(stepCount);
+    writeAnt(out, ant);
+    grid.write(out);
+    out.writeBoolean(origin != null);
+    if (origin != null) {
+      origin.write(out);
+    }
+    writeAnt(out, originAnt);
+    out.writeInt(originStep);
+    out.writeInt(moves.length / 4);
+    for (final int value : moves) {
+      out.writeInt(value);
+    }
+  }
+
+  /**
+   * Reads a checkpoint written by {@code write}. Every size is checked against the length of the
+   * input before anything is allocated for it.
+   *
+   * @param in the input the checkpoint is read from
+   * @param length the number of bytes of the input
+   * @return the read checkpoint
+   * @throws IOException if reading fails or the checkpoint is invalid
+   */
+  static Checkpoint read(DataInput in, long length) throws IOException {
+    final String rule = in.readUTF();
+    final int width = in.readInt();
+    final int height = in.readInt();
+    final int stepCount = in.readInt();
+    if (!Rule.isValid(rule) || width < 0 || height < 0 || stepCount < 0) {
+      throw new IOException("Invalid checkpoint");
+    }
+    // every chunk takes at least its flag
+    final long chunks = ((width + (long) StateGrid.CHUNK_MASK) >> StateGrid.CHUNK_BITS)
+        * ((height + (long) StateGrid.CHUNK_MASK) >> StateGrid.CHUNK_BITS);
+    if (chunks > length) {
+      throw new IOException("Invalid checkpoint");
+    }
+    final int antStates = Rule.parse(rule).getAntStates();
+    final Ant ant = readAnt(in, width, height, antStates);
+    final StateGrid grid = StateGrid.read(in, width, height);
+    final StateGrid origin = in.readBoolean() ? StateGrid.read(in, width, height) : null;
+    final Ant originAnt = readAnt(in, width, height, antStates);
+    final int originStep = in.readInt();
+    final int count = in.readInt();
+    if (originStep < 0 || originStep > stepCount || count != stepCount - originStep
+        || 16L * count > length) {
+      throw new IOException("Invalid checkpoint");
+    }
+    final int[] moves = new int[4 * count];
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = in.readInt();
+    }
+    for (int i = 0; i < moves.length; i += 4) {
+      // saved moves may be out of range after downsizing, but their direction and state are not
+      if (moves[i + 2] < 0 || moves[i + 2] > 3 || moves[i + 3] < 0
+          || moves[i + 3] >= antStates) {
+        throw new IOException("Invalid saved move");
+      }
+    }
+    return new Checkpoint(rule, stepCount, ant, grid, origin, originAnt, originStep, moves);
+  }
+
+  /** Writes an ant or only a flag if it is {@code null}. */
+  private static void writeAnt(DataOutput out, Ant ant) throws IOException {
+    out.writeBoolean(ant != null);
+    if (ant != null) {
+      out.writeInt(ant.getX());
+      out.writeInt(ant.getY());
+      out.writeInt(ant.getOrientation().ordinal());
+      out.writeInt(ant.getState());
+    }
+  }
+
+  /** Reads an ant written by {@code writeAnt}, which has one of the given number of states. */
+  private static Ant readAnt(DataInput in, int width, int height, int antStates)
+      throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    final int x = in.readInt();
+    final int y = in.readInt();
+    final int orientation = in.readInt();
+    final int state = in.readInt();
+    if (x < 0 || y < 0 || x >= width || y >= height || orientation < 0 || orientation > 3
+        || state < 0 || state >= antStates) {
+      throw new IOException("Invalid ant");
+    }
+    return Ant.create(x, y, orientation, state);
+  }
+
+}
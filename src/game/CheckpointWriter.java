@@ -0,0 +1,359 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes checkpoints of a {@code Board} into a directory at a step or time interval. A checkpoint
+ * is taken on the computing thread, which only forks the cells and copies the saved moves, and
+ * written by a background thread. If the previous checkpoint is still being written when the next
+ * one is due, the next one is taken as soon as the previous one is written, the interval starts
+ * again from then. Stopping takes a final checkpoint. Every checkpoint is written to a temporary
+ * file, forced to the disk and renamed atomically, thus a crash leaves either the complete new
+ * checkpoint or none. The two newest checkpoints are kept. Checkpoints are numbered in the order
+ * they are taken rather than by the number of steps, since the board may be reset in between.
+ *
+ * <p>File format (big-endian): the magic number 0x414E544B ("ANTK"), the checkpoint (see
+ * {@code Checkpoint.write}) and the CRC-32 of both (long). The checksum is verified before a
+ * checkpoint is read.
+ */
+final class CheckpointWriter {
+
+  // identifies checkpoints ("ANTK")
+  private static final int MAGIC = 0x414E544B;
+
+  // checkpoint files are named PREFIX + sequence number + EXTENSION
+  private static final String PREFIX = "checkpoint-";
+  private static final String EXTENSION = ".ant";
+
+  // the number of checkpoints kept in the directory
+  private static final int KEPT_CHECKPOINTS = 2;
+
+  // the largest number of steps computed between two checks of the time interval or of a delayed
+  // checkpoint
+  private static final int TIME_CHECK_STEPS = 1 << 16;
+
+  /**
+   * The directory the checkpoints are written to.
+   */
+  private final Path directory;
+
+  /**
+   * The number of steps between two checkpoints, 0 for no step interval.
+   */
+  private final int stepInterval;
+
+  /**
+   * The time between two checkpoints in nanoseconds, 0 for no time interval.
+   */
+  private final long timeInterval;
+
+  /**
+   * The background thread writing the checkpoints.
+   */
+  private final ExecutorService writer;
+
+  /**
+   * The checkpoint being written, {@code null} before the first one.
+   */
+  private Future<?> pending;
+
+  /**
+   * The sequence number of the next checkpoint.
+   */
+  private long sequence;
+
+  /**
+   * The step at which the next checkpoint is due.
+   */
+  private long nextStep;
+
+  /**
+   * The time at which the next checkpoint is due.
+   */
+  private long nextTime;
+
+  /**
+   * The first error of the background thread.
+   */
+  private volatile IOException failure;
+
+  /**
+   * Creates a new {@code CheckpointWriter}.
+   */
+  private CheckpointWriter(Path directory, int stepInterval, long timeInterval, int stepCount,
+      long sequence) {
+    this.directory = directory;
+    this.sequence = sequence;
+    this.stepInterval = stepInterval;
+    this.timeInterval = timeInterval;
+    this.writer = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "checkpoint-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    schedule(stepCount);
+  }
+
+  /**
+   * Creates a new {@code CheckpointWriter} and the directory if necessary.
+   *
+   * @param directory the directory the checkpoints are written to
+   * @param stepInterval the non-negative number of steps between two checkpoints, 0 for none
+   * @param timeInterval the non-negative time between two checkpoints in milliseconds, 0 for none
+   * @param stepCount the current number of steps of the board
+   * @return the newly created {@code CheckpointWriter}
+   * @throws IOException if the directory cannot be created or read
+   */
+  static CheckpointWriter create(Path directory, int stepInterval, long timeInterval,
+      int stepCount) throws IOException {
+    if (stepInterval < 0 || timeInterval < 0) {
+      throw new IllegalArgumentException("Negative interval");
+    }
+    Files.createDirectories(directory);
+    // continue the numbering of earlier checkpoints in the directory
+    final List<Path> checkpoints = list(directory);
+    final long sequence = checkpoints.isEmpty() ? 0 : sequence(checkpoints.get(0)) + 1;
+    return new CheckpointWriter(directory, stepInterval, timeInterval * 1_000_000, stepCount,
+        sequence);
+  }
+
+  /** Sets the step and the time the next checkpoint is due at. */
+  private void schedule(int stepCount) {
+    nextStep = stepInterval == 0 ? Long.MAX_VALUE : (long) stepCount + stepInterval;
+    nextTime = timeInterval == 0 ? Long.MAX_VALUE : System.nanoTime() + timeInterval;
+  }
+
+  /**
+   * Returns the number of steps that may be computed before {@code afterSteps} has to be called.
+   *
+   * @param stepCount the current number of steps of the board
+   */
+  int stepsUntilDue(int stepCount) {
+    if (nextStep <= stepCount) {
+      // a delayed checkpoint is due, it is taken once the previous one is written
+      return TIME_CHECK_STEPS;
+    }
+    final long steps = timeInterval == 0 ? nextStep - stepCount
+        : Math.min(nextStep - stepCount, TIME_CHECK_STEPS);
+    return (int) Math.min(steps, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Takes a checkpoint of the board if one is due and the previous one has been written.
+   *
+   * @param board the board
+   * @throws UncheckedIOException if writing an earlier checkpoint failed, the background thread is
+   *         stopped then
+   */
+  void afterSteps(Board board) {
+    if (failure != null) {
+      writer.shutdown();
+      throw new UncheckedIOException("Writing a checkpoint failed", failure);
+    }
+    if (board.getStepCount() < nextStep && System.nanoTime() - nextTime < 0) {
+      return;
+    }
+    if (pending != null && !pending.isDone()) {
+      // delay this checkpoint rather than stopping the computation
+      return;
+    }
+    take(board);
+  }
+
+  /** Takes a checkpoint of the board, hands it to the background thread and schedules the next. */
+  private void take(Board board) {
+    schedule(board.getStepCount());
+    final Checkpoint checkpoint = board.checkpoint();
+    final long number = sequence++;
+    pending = writer.submit(() -> write(checkpoint, number));
+  }
+
+  /**
+   * Takes a final checkpoint of the board, waits until it is written and stops the background
+   * thread.
+   *
+   * @param board the board
+   * @throws IOException if writing any checkpoint failed
+   */
+  void close(Board board) throws IOException {
+    try {
+      if (failure == null) {
+        waitForPending();
+        take(board);
+      }
+      waitForPending();
+    } finally {
+      writer.shutdown();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /** Waits until the checkpoint being written, if any, is written. */
+  private void waitForPending() throws IOException {
+    if (pending != null) {
+      try {
+        pending.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while writing a checkpoint", e);
+      } catch (ExecutionException e) {
+        throw new IOException(e.getCause());
+      }
+    }
+  }
+
+  /** Writes a checkpoint atomically and deletes old ones, run by the background thread. */
+  private void write(Checkpoint checkpoint, long number) {
+    final Path file = directory.resolve(PREFIX + number + EXTENSION);
+    Path temporary = null;
+    try {
+      temporary = Files.createTempFile(directory, PREFIX, ".tmp");
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        final CRC32 checksum = new CRC32();
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+            new CheckedOutputStream(Channels.newOutputStream(channel), checksum)));
+        out.writeInt(MAGIC);
+        checkpoint.write(out);
+        out.flush();
+        out.writeLong(checksum.getValue());
+        out.flush();
+        channel.force(true);
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      forceDirectory();
+
+      final List<Path> checkpoints = list(directory);
+      for (int i = KEPT_CHECKPOINTS; i < checkpoints.size(); i++) {
+        Files.deleteIfExists(checkpoints.get(i));
+      }
+    } catch (IOException e) {
+      if (failure == null) {
+        failure = e;
+      }
+    } finally {
+      try {
+        if (temporary != null) {
+          Files.deleteIfExists(temporary);
+        }
+      } catch (IOException e) {
+        // the temporary file is only garbage
+      }
+    }
+  }
+
+  /** Forces the renaming to the disk, if the platform supports opening directories. */
+  private void forceDirectory() {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // not supported e.g. on Windows, the rename is durable once the file system syncs
+    }
+  }
+
+  /**
+   * Returns the checkpoints in a directory, the newest i.e. the one with the largest sequence
+   * number first.
+   */
+  private static List<Path> list(Path directory) throws IOException {
+    final List<Path> checkpoints = new ArrayList<>();
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(directory, PREFIX + "*" + EXTENSION)) {
+      stream.forEach(checkpoints::add);
+    }
+    checkpoints.sort((a, b) -> Long.compare(sequence(a), sequence(b)));
+    Collections.reverse(checkpoints);
+    return checkpoints;
+  }
+
+  /** Returns the sequence number in the name of a checkpoint file, -1 if it is not a number. */
+  private static long sequence(Path file) {
+    final String name = file.getFileName().toString();
+    try {
+      return Long.parseLong(name.substring(PREFIX.length(), name.length() - EXTENSION.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Reads the newest valid checkpoint in a directory. Damaged checkpoints, e.g. of a crash while
+   * renaming on a file system without atomic renames, are skipped.
+   *
+   * @param directory the directory containing the checkpoints
+   * @return the newest valid checkpoint
+   * @throws IOException if there is no valid checkpoint
+   */
+  static Checkpoint readNewest(Path directory) throws IOException {
+    IOException failure = new IOException("No checkpoint in " + directory);
+    for (Path file : list(directory)) {
+      // nothing is allocated for a damaged checkpoint
+      if (!hasValidChecksum(file)) {
+        failure = new IOException("Damaged checkpoint: " + file);
+        continue;
+      }
+      try (InputStream stream = Files.newInputStream(file)) {
+        final CRC32 checksum = new CRC32();
+        // the checksum must not see the bytes the buffer reads ahead
+        final DataInputStream in = new DataInputStream(
+            new CheckedInputStream(new BufferedInputStream(stream), checksum));
+        if (in.readInt() != MAGIC) {
+          throw new IOException("Not a checkpoint: " + file);
+        }
+        final Checkpoint checkpoint = Checkpoint.read(in, Files.size(file));
+        final long expected = checksum.getValue();
+        if (in.readLong() != expected || in.read() != -1) {
+          throw new IOException("Damaged checkpoint: " + file);
+        }
+        return checkpoint;
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    throw failure;
+  }
+
+  /** Returns whether the CRC-32 at the end of a file matches the bytes before it. */
+  private static boolean hasValidChecksum(Path file) throws IOException {
+    final CRC32 checksum = new CRC32();
+    try (InputStream stream = Files.newInputStream(file)) {
+      final byte[] buffer = new byte[1 << 16];
+      long remaining = Files.size(file) - Long.BYTES;
+      while (remaining > 0) {
+        final int read = stream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (read < 0) {
+          return false;
+        }
+        checksum.update(buffer, 0, read);
+        remaining -= read;
+      }
+      return remaining == 0 && new DataInputStream(stream).readLong() == checksum.getValue();
+    }
+  }
+
+}
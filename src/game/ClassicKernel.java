@@ -0,0 +1,65 @@
+package game;
+
+/**
+ * Template of a step loop for classic ants. This class is never used as is: {@code StepKernels}
+ * copies its bytecode for every rule, replaces the values of the placeholder constants
+ * {@code COLORS} and {@code TURN_MASK} in the constant pool and defines the copy as hidden class.
+ * Since the rule is stored in static final fields of its own class, the JIT compiles it as
+ * constants into the loop.
+ */
+final class ClassicKernel implements StepKernel {
+
+  // placeholder for the number of colors, must stay unique in the constant pool
+  static final int COLORS = 0x7EED_C010;
+
+  // placeholder for the turns, bit c is set if the ant turns right on color c
+  static final long TURN_MASK = 0x5EED_5EED_7E11_AA55L;
+
+  @Override
+  public long computeSteps(StateGrid grid, Ant ant, int[] population, MoveHistory antMoves,
+      long cellsHash, int number) {
+    final int width = grid.getWidth();
+    final int height = grid.getHeight();
+    int x = ant.getX();
+    int y = ant.getY();
+    int orientation = ant.getOrientation().ordinal();
+    long hash = cellsHash;
+
+    for (int i = 0; i < number; i++) {
+      antMoves.add(x, y, orientation, 0);
+
+      // switch the state of the cell where the ant currently is
+      final int state = grid.get(x, y);
+      final int nextState = state + 1 == COLORS ? 0 : state + 1;
+      grid.set(x, y, nextState);
+      population[state]--;
+      population[nextState]++;
+      hash ^= Zobrist.cellKey(x, y, state) ^ Zobrist.cellKey(x, y, nextState);
+
+      // move the ant by one step on the torus
+      switch (orientation) {
+        case 0: // NORTH
+          y = y == 0 ? height - 1 : y - 1;
+          break;
+        case 1: // EAST
+          x = x + 1 == width ? 0 : x + 1;
+          break;
+        case 2: // SOUTH
+          y = y + 1 == height ? 0 : y + 1;
+          break;
+        default: // WEST
+          x = x == 0 ? width - 1 : x - 1;
+          break;
+      }
+
+      // turn right or left depending on the state of the entered cell
+      orientation = (orientation + ((TURN_MASK >>> grid.get(x, y) & 1) == 1 ? 1 : 3)) & 3;
+    }
+
+    ant.setX(x);
+    ant.setY(y);
+    ant.setOrientation(orientation);
+    return hash;
+  }
+
+}
@@ -0,0 +1,18 @@
+package game;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted for every call of {@code Board.clear}.
+ */
+@Name("game.Clear")
+@Label("Clear")
+@Description("Resetting the entire board")
+class ClearEvent extends BoardEvent {
+
+  @Label("Cleared Steps")
+  int clearedSteps;
+
+}
@@ -0,0 +1,145 @@
+package game;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of the cells and ants of a board with any number of ants, e.g. reassembled from
+ * the shards of a {@code ShardedSimulation}.
+ */
+public class ColonySnapshot implements CellView {
+
+  /**
+   * The width of the board.
+   */
+  private final int width;
+
+  /**
+   * The height of the board.
+   */
+  private final int height;
+
+  /**
+   * The states of all cells, row by row.
+   */
+  private final byte[] cells;
+
+  /**
+   * Copies of all ants.
+   */
+  private final List<Ant> ants;
+
+  /**
+   * The number of steps computed by all ants together.
+   */
+  private final long stepCount;
+
+  /**
+   * The ants by their positions.
+   */
+  private final AntIndex index;
+
+  /**
+   * Creates a new {@code ColonySnapshot}, the given arrays and lists are not copied.
+   */
+  ColonySnapshot(int width, int height, byte[] cells, List<Ant> ants, long stepCount) {
+    this.width = width;
+    this.height = height;
+    this.cells = cells;
+    this.ants = Collections.unmodifiableList(ants);
+    this.stepCount = stepCount;
+    this.index = new AntIndex();
+    for (Ant ant : ants) {
+      index.add(ant);
+    }
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public int getState(int x, int y) {
+    return cells[y * width + x] & 0xFF;
+  }
+
+  @Override
+  public int getRunLength(int x, int y) {
+    final byte state = cells[y * width + x];
+    int end = x + 1;
+    while (end < width && cells[y * width + end] == state) {
+      end++;
+    }
+    return end - x;
+  }
+
+  /**
+   * Returns all ants by their coordinates. If several ants share a cell only one of them is
+   * returned for this cell.
+   */
+  @Override
+  public Map<Coordinate, Ant> getAnts() {
+    final Map<Coordinate, Ant> result = new HashMap<>();
+    for (Ant ant : ants) {
+      result.put(new Coordinate(ant.getX(), ant.getY()), Ant.copyOf(ant));
+    }
+    return result;
+  }
+
+  /**
+   * Returns a copy of the ant on the cell at the given coordinates or {@code null} if there is
+   * none, thus the snapshot stays unchanged. If several ants share the cell one of them is
+   * returned.
+   * 
+   * @param x the x-Coordinate
+   * @param y the y-Coordinate
+   */
+  @Override
+  public Ant getAnt(int x, int y) {
+    final Ant ant = index.get(x, y);
+    return ant == null ? null : Ant.copyOf(ant);
+  }
+
+  @Override
+  public int countAnts(int x, int y, int width, int height) {
+    return index.count(x, y, width, height);
+  }
+
+  /**
+   * Returns the number of ants.
+   */
+  public int getNumberOfAnts() {
+    return ants.size();
+  }
+
+  /**
+   * Returns the number of cells in the given state.
+   * 
+   * @param state the state
+   */
+  public long getPopulation(int state) {
+    long count = 0;
+    for (final byte cell : cells) {
+      if ((cell & 0xFF) == state) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of steps computed by all ants together.
+   */
+  public long getStepCount() {
+    return stepCount;
+  }
+
+}
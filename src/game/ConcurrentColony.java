@@ -0,0 +1,348 @@
+package game;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A board on which many ants move concurrently. The ants are distributed among worker threads,
+ * every worker computes the steps of its ants independently of all other workers. Cells are
+ * switched to their next state by an atomic compare-and-set, thus no change of a cell is lost,
+ * but the order in which ants visit a cell is not deterministic. This mode trades reproducibility
+ * for throughput, which scales with the number of cores as long as the ants rarely meet.
+ */
+public class ConcurrentColony implements AutoCloseable {
+
+  // atomic access to the elements of the cells array
+  private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+  /**
+   * The width of the board.
+   */
+  private final int width;
+
+  /**
+   * The height of the board.
+   */
+  private final int height;
+
+  /**
+   * The states of all cells, row by row.
+   */
+  private final byte[] cells;
+
+  /**
+   * The number of colors a cell can take.
+   */
+  private final int colors;
+
+  /**
+   * Saves whether the rule is a classic ant, which turns after entering a cell.
+   */
+  private final boolean classic;
+
+  /**
+   * The packed transitions of the rule, indexed by {@code antState * colors + cellState}.
+   */
+  private final int[] transitions;
+
+  /**
+   * All ants on the board.
+   */
+  private final List<Ant> ants;
+
+  /**
+   * The ants by their positions after the last call of {@code performSteps}.
+   */
+  private final AntIndex index;
+
+  /**
+   * The number of cells in each state.
+   */
+  private final long[] population;
+
+  /**
+   * The number of steps computed by all ants together.
+   */
+  private long stepCount;
+
+  /**
+   * The worker threads.
+   */
+  private final ExecutorService workers;
+
+  /**
+   * The number of worker threads.
+   */
+  private final int parallelism;
+
+  /**
+   * Creates a new {@code ConcurrentColony} with all cells in state 0 and no ants.
+   */
+  private ConcurrentColony(int width, int height, String states, int parallelism) {
+    final Rule rule = Rule.parse(states);
+    this.width = width;
+    this.height = height;
+    this.cells = new byte[Math.multiplyExact(width, height)];
+    this.colors = rule.getColors();
+    this.classic = rule.isClassic();
+    this.transitions = rule.getTransitions();
+    this.ants = new ArrayList<>();
+    this.index = new AntIndex();
+    this.population = new long[colors];
+    this.population[0] = (long) width * height;
+    this.parallelism = parallelism;
+    this.workers = Executors.newFixedThreadPool(parallelism, task -> {
+      Thread thread = new Thread(task, "colony-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Creates a new {@code ConcurrentColony} with all cells in state 0 and no ants, using one worker
+   * thread per available processor.
+   * 
+   * @param width positive width of the board
+   * @param height positive height of the board
+   * @param states the state configuration, see {@code Rule}
+   * @return the newly created {@code ConcurrentColony}
+   */
+  public static ConcurrentColony create(int width, int height, String states) {
+    return new ConcurrentColony(width, height, states,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new {@code ConcurrentColony} with the cells and ants of a {@code Grid}.
+   * 
+   * @param grid the {@code Grid} to be copied
+   * @param states the state configuration of the grid, see {@code Rule}
+   * @param parallelism the positive number of worker threads
+   * @return the newly created {@code ConcurrentColony}
+   */
+  public static ConcurrentColony copyOf(Grid grid, String states, int parallelism) {
+    final ConcurrentColony colony =
+        new ConcurrentColony(grid.getWidth(), grid.getHeight(), states, parallelism);
+    for (int y = 0; y < grid.getHeight(); y++) {
+      for (int x = 0; x < grid.getWidth(); x++) {
+        final int state = grid.getState(x, y);
+        colony.cells[y * colony.width + x] = (byte) state;
+        colony.population[0]--;
+        colony.population[state]++;
+      }
+    }
+    for (Map.Entry<Coordinate, Ant> entry : grid.getAnts().entrySet()) {
+      colony.setAnt(Ant.copyOf(entry.getValue()), entry.getKey().getX(), entry.getKey().getY());
+    }
+    return colony;
+  }
+
+  /**
+   * Adds a new {@code Ant}. Several ants may share a cell.
+   * 
+   * @param object the {@code Ant} to be added
+   * @param col x-Coordinate of the {@code Ant}
+   * @param row y-Coordinate of the {@code Ant}
+   */
+  public void setAnt(Ant object, int col, int row) {
+    if (col < 0 || row < 0 || col >= width || row >= height) {
+      throw new IndexOutOfBoundsException("Ant out of range");
+    }
+    object.setX(col);
+    object.setY(row);
+    ants.add(object);
+    index.add(object);
+  }
+
+  /**
+   * Returns the number of ants.
+   */
+  public int getNumberOfAnts() {
+    return ants.size();
+  }
+
+  /**
+   * Returns all ants by their coordinates. If several ants share a cell only one of them is
+   * returned for this cell.
+   */
+  public Map<Coordinate, Ant> getAnts() {
+    final Map<Coordinate, Ant> result = new HashMap<>();
+    for (Ant ant : ants) {
+      result.put(new Coordinate(ant.getX(), ant.getY()), ant);
+    }
+    return result;
+  }
+
+  /**
+   * Lets every ant compute the given number of steps concurrently and waits until all are done.
+   * 
+   * @param stepsPerAnt the number of steps of each ant
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  public void performSteps(int stepsPerAnt) throws InterruptedException {
+    final int workerCount = Math.min(parallelism, ants.size());
+    final List<Future<long[]>> results = new ArrayList<>();
+    for (int worker = 0; worker < workerCount; worker++) {
+      // every worker owns a contiguous share of the ants
+      final List<Ant> share = ants.subList(worker * ants.size() / workerCount,
+          (worker + 1) * ants.size() / workerCount);
+      results.add(workers.submit(() -> computeSteps(share, stepsPerAnt)));
+    }
+
+    try {
+      for (Future<long[]> result : results) {
+        final long[] changes = result.get();
+        for (int state = 0; state < colors; state++) {
+          population[state] += changes[state];
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+    stepCount += (long) stepsPerAnt * ants.size();
+
+    // the workers move the ants concurrently, thus the index is rebuilt afterwards
+    index.clear();
+    for (Ant ant : ants) {
+      index.add(ant);
+    }
+  }
+
+  /**
+   * Returns the ant on the cell at the given coordinates after the last call of
+   * {@code performSteps} or {@code null} if there is none. If several ants share the cell one of
+   * them is returned.
+   * 
+   * @param x the x-Coordinate
+   * @param y the y-Coordinate
+   */
+  public Ant getAnt(int x, int y) {
+    return index.get(x, y);
+  }
+
+  /**
+   * Returns the number of ants inside of a rectangle after the last call of {@code performSteps}.
+   * 
+   * @param x the x-Coordinate of the left column of the rectangle
+   * @param y the y-Coordinate of the top row of the rectangle
+   * @param width the number of columns of the rectangle
+   * @param height the number of rows of the rectangle
+   */
+  public int countAnts(int x, int y, int width, int height) {
+    return index.count(x, y, width, height);
+  }
+
+  /**
+   * Computes the steps of the given ants, interleaving them step by step. Returns the changes of
+   * the population.
+   */
+  private long[] computeSteps(List<Ant> share, int stepsPerAnt) {
+    final long[] changes = new long[colors];
+    for (int i = 0; i < stepsPerAnt; i++) {
+      for (Ant ant : share) {
+        step(ant, changes);
+      }
+    }
+    return changes;
+  }
+
+  /** Computes one step of an ant. */
+  private void step(Ant ant, long[] changes) {
+    final int index = ant.getY() * width + ant.getX();
+
+    // switch the state of the cell atomically, retry if another ant changed it meanwhile
+    int state;
+    int transition;
+    do {
+      state = (byte) CELLS.getVolatile(cells, index) & 0xFF;
+      transition = transitions[ant.getState() * colors + state];
+    } while (!CELLS.compareAndSet(cells, index, (byte) state,
+        (byte) Rule.newColor(transition)));
+    changes[state]--;
+    changes[Rule.newColor(transition)]++;
+
+    if (!classic) {
+      ant.turn(Rule.turn(transition));
+      ant.setState(Rule.newAntState(transition));
+    }
+
+    // move the ant by one step on the torus
+    switch (ant.getOrientation()) {
+      case NORTH:
+        ant.setY(ant.getY() == 0 ? height - 1 : ant.getY() - 1);
+        break;
+      case EAST:
+        ant.setX(ant.getX() + 1 == width ? 0 : ant.getX() + 1);
+        break;
+      case SOUTH:
+        ant.setY(ant.getY() + 1 == height ? 0 : ant.getY() + 1);
+        break;
+      default:
+        ant.setX(ant.getX() == 0 ? width - 1 : ant.getX() - 1);
+        break;
+    }
+
+    if (classic) {
+      final int entered = (byte) CELLS.getOpaque(cells, ant.getY() * width + ant.getX()) & 0xFF;
+      ant.turn(Rule.turn(transitions[entered]));
+    }
+  }
+
+  /**
+   * Returns the state of the cell at the given coordinates.
+   * 
+   * @param x the x-Coordinate
+   * @param y the y-Coordinate
+   */
+  public int getState(int x, int y) {
+    return (byte) CELLS.getVolatile(cells, y * width + x) & 0xFF;
+  }
+
+  /**
+   * Returns the number of cells in the given state after the last call of
+   * {@code performSteps}.
+   * 
+   * @param state the state
+   */
+  public long getPopulation(int state) {
+    return population[state];
+  }
+
+  /**
+   * Returns the number of steps computed by all ants together.
+   */
+  public long getStepCount() {
+    return stepCount;
+  }
+
+  /**
+   * Returns the width of the board.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the board.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Stops the worker threads.
+   */
+  @Override
+  public void close() {
+    workers.shutdownNow();
+  }
+
+}
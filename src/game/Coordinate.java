@@ -40,4 +40,18 @@ public class Coordinate {
     return yCoordinate;
   }
 
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Coordinate)) {
+      return false;
+    }
+    final Coordinate coordinate = (Coordinate) other;
+    return xCoordinate == coordinate.xCoordinate && yCoordinate == coordinate.yCoordinate;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * xCoordinate + yCoordinate;
+  }
+
 }
@@ -0,0 +1,343 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many simulations from random initial boards in parallel and aggregates their statistics.
+ * Every run starts with each cell in a random non-zero state with the given probability and one
+ * ant at a random position and orientation. A run ends once the ant builds a highway, i.e. it
+ * repeats the same moves periodically while drifting away, or the step budget is used up.
+ *
+ * <p>The runs are grouped into blocks of a fixed size, which the worker threads take one after the
+ * other. Every block has a {@code SplittableRandom} split off the seed in the order of the blocks,
+ * every run one split off the random of its block. The statistics of the blocks are merged in the
+ * same order, thus the results only depend on the seed and not on the number of threads. Every
+ * worker reuses its cells for all of its runs, only the running statistics are kept, not the
+ * boards.
+ */
+public class Ensemble {
+
+  // the number of runs of a block
+  private static final int BLOCK = 64;
+
+  // the longest period of a highway that is detected
+  private static final int MAXIMUM_PERIOD = 1024;
+
+  // number of moves compared at once to find a period
+  private static final int WINDOW = 64;
+
+  // number of periods the moves have to repeat to be a highway
+  private static final int CONFIRMATION = 2;
+
+  // the number of slots of the table of recently seen move sequences, a power of two
+  private static final int TABLE_BITS = 12;
+
+  // multiplier of the rolling hash of the moves
+  private static final long BASE = 0x9E3779B97F4A7C15L;
+
+  // the power of BASE removing the oldest move from the rolling hash
+  private static final long OUTGOING = power(BASE, WINDOW);
+
+  /**
+   * The width of the boards.
+   */
+  private final int width;
+
+  /**
+   * The height of the boards.
+   */
+  private final int height;
+
+  /**
+   * The number of colors a cell can take.
+   */
+  private final int colors;
+
+  /**
+   * Saves whether the rule is a classic ant, which turns after entering a cell.
+   */
+  private final boolean classic;
+
+  /**
+   * The packed transitions of the rule, indexed by {@code antState * colors + cellState}.
+   */
+  private final int[] transitions;
+
+  /**
+   * The probability of a cell to start in a non-zero state.
+   */
+  private final double density;
+
+  /**
+   * The maximum number of steps of a run.
+   */
+  private final int stepBudget;
+
+  /**
+   * Creates a new {@code Ensemble}.
+   */
+  private Ensemble(int width, int height, Rule rule, double density, int stepBudget) {
+    this.width = width;
+    this.height = height;
+    this.colors = rule.getColors();
+    this.classic = rule.isClassic();
+    this.transitions = rule.getTransitions();
+    this.density = density;
+    this.stepBudget = stepBudget;
+  }
+
+  /**
+   * Creates a new {@code Ensemble}.
+   *
+   * @param width positive width of the boards
+   * @param height positive height of the boards
+   * @param states the state configuration, see {@code Rule}
+   * @param density the probability between 0 and 1 of a cell to start in a non-zero state
+   * @param stepBudget non-negative maximum number of steps of a run
+   * @return the newly created {@code Ensemble}
+   */
+  public static Ensemble create(int width, int height, String states, double density,
+      int stepBudget) {
+    if (width <= 0 || height <= 0 || stepBudget < 0) {
+      throw new IllegalArgumentException("Invalid board size or step budget");
+    } else if (!(density >= 0 && density <= 1)) {
+      throw new IllegalArgumentException("Invalid density");
+    }
+    Math.multiplyExact(width, height);
+    return new Ensemble(width, height, Rule.parse(states), density, stepBudget);
+  }
+
+  /**
+   * Computes the given number of runs and waits until all are done.
+   *
+   * @param runs non-negative number of runs
+   * @param seed the seed of all random initial boards
+   * @param parallelism positive number of worker threads, which does not change the results, with
+   *        1 the runs are computed by the current thread
+   * @return the aggregated statistics of all runs
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  public EnsembleResult run(int runs, long seed, int parallelism) throws InterruptedException {
+    final long start = System.nanoTime();
+    final SplittableRandom random = new SplittableRandom(seed);
+    final int blocks = (runs + BLOCK - 1) / BLOCK;
+    final SplittableRandom[] randoms = new SplittableRandom[blocks];
+    final RunningStatistics[] times = new RunningStatistics[blocks];
+    final RunningStatistics[] cells = new RunningStatistics[blocks];
+    for (int i = 0; i < blocks; i++) {
+      randoms[i] = random.split();
+      times[i] = new RunningStatistics();
+      cells[i] = new RunningStatistics();
+    }
+    final AtomicInteger nextBlock = new AtomicInteger();
+    final Runnable task = () -> {
+      final Worker worker = new Worker();
+      for (int block = nextBlock.getAndIncrement(); block < blocks
+          && !Thread.currentThread().isInterrupted(); block = nextBlock.getAndIncrement()) {
+        final int blockRuns = Math.min(BLOCK, runs - block * BLOCK);
+        for (int run = 0; run < blockRuns; run++) {
+          worker.computeRun(randoms[block].split(), times[block], cells[block]);
+        }
+      }
+    };
+
+    if (Math.min(parallelism, blocks) <= 1) {
+      // the current thread computes all runs, e.g. a thread of a shared pool
+      task.run();
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    } else {
+      runInParallel(task, Math.min(parallelism, blocks));
+    }
+
+    final RunningStatistics timeToHighway = new RunningStatistics();
+    final RunningStatistics visitedCells = new RunningStatistics();
+    for (int i = 0; i < blocks; i++) {
+      timeToHighway.merge(times[i]);
+      visitedCells.merge(cells[i]);
+    }
+    return new EnsembleResult(runs, timeToHighway, visitedCells, System.nanoTime() - start);
+  }
+
+  /** Runs a task on the given number of new worker threads and waits until all are done. */
+  private static void runInParallel(Runnable task, int parallelism) throws InterruptedException {
+    final ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "ensemble-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    try {
+      final List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < parallelism; i++) {
+        results.add(workers.submit(task));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  /**
+   * Computes runs one after the other on the same cells.
+   */
+  private final class Worker {
+
+    /**
+     * The states of all cells, row by row.
+     */
+    private final byte[] cells = new byte[width * height];
+
+    /**
+     * One bit per cell, set if the ant visited the cell.
+     */
+    private final long[] visited = new long[(width * height + 63) / 64];
+
+    /**
+     * The last moves of the ant, the most recent at {@code step % WINDOW}.
+     */
+    private final int[] moves = new int[WINDOW];
+
+    /**
+     * The rolling hashes of the last moves after each of the recent steps, the most recent at
+     * {@code step % MAXIMUM_PERIOD}.
+     */
+    private final long[] hashes = new long[MAXIMUM_PERIOD];
+
+    /**
+     * The positions of the ant without wrapping around the torus after each of the recent steps.
+     */
+    private final long[] xs = new long[MAXIMUM_PERIOD];
+
+    private final long[] ys = new long[MAXIMUM_PERIOD];
+
+    /**
+     * The most recent step after which a rolling hash was seen, indexed by the upper bits of the
+     * hash.
+     */
+    private final long[] seenHashes = new long[1 << TABLE_BITS];
+
+    private final int[] seenSteps = new int[1 << TABLE_BITS];
+
+    /** Computes one run from a random initial board and adds it to the statistics. */
+    void computeRun(SplittableRandom random, RunningStatistics timeToHighway,
+        RunningStatistics visitedCells) {
+      for (int i = 0; i < cells.length; i++) {
+        cells[i] = random.nextDouble() < density ? (byte) (1 + random.nextInt(colors - 1)) : 0;
+      }
+      Arrays.fill(visited, 0);
+      Arrays.fill(seenSteps, Integer.MIN_VALUE);
+
+      int x = random.nextInt(width);
+      int y = random.nextInt(height);
+      int orientation = random.nextInt(4);
+      int antState = 0;
+      long unwrappedX = 0;
+      long unwrappedY = 0;
+      long visitedCount = 0;
+
+      long hash = 0;
+      int period = 0;
+      int repetitions = 0;
+
+      for (int step = 1; step <= stepBudget; step++) {
+        final int index = y * width + x;
+        if ((visited[index >>> 6] & 1L << index) == 0) {
+          visited[index >>> 6] |= 1L << index;
+          visitedCount++;
+        }
+
+        final int transition = transitions[antState * colors + cells[index]];
+        if (!classic) {
+          orientation = (orientation + Rule.turn(transition)) & 3;
+          antState = Rule.newAntState(transition);
+        }
+        cells[index] = (byte) Rule.newColor(transition);
+
+        // move the ant by one step on the torus
+        switch (orientation) {
+          case 0: // NORTH
+            y = y == 0 ? height - 1 : y - 1;
+            unwrappedY--;
+            break;
+          case 1: // EAST
+            x = x + 1 == width ? 0 : x + 1;
+            unwrappedX++;
+            break;
+          case 2: // SOUTH
+            y = y + 1 == height ? 0 : y + 1;
+            unwrappedY++;
+            break;
+          default: // WEST
+            x = x == 0 ? width - 1 : x - 1;
+            unwrappedX--;
+            break;
+        }
+        if (classic) {
+          orientation = (orientation + Rule.turn(transitions[cells[y * width + x]])) & 3;
+        }
+
+        // roll the hash of the last moves forward
+        final int move = 1 + (orientation | antState << 2);
+        hash = hash * BASE + move - (step > WINDOW ? moves[step % WINDOW] : 0) * OUTGOING;
+        moves[step % WINDOW] = move;
+        final int slot = step % MAXIMUM_PERIOD;
+        if (step < WINDOW) {
+          hashes[slot] = hash;
+          xs[slot] = unwrappedX;
+          ys[slot] = unwrappedY;
+          continue;
+        }
+
+        if (period != 0 && hash == hashes[(step - period) % MAXIMUM_PERIOD]) {
+          if (++repetitions == CONFIRMATION * period) {
+            // the moves repeat periodically since the window that first matched
+            final int previous = (step - period) % MAXIMUM_PERIOD;
+            if (unwrappedX != xs[previous] || unwrappedY != ys[previous]) {
+              timeToHighway.add(Math.max(0, step - repetitions - WINDOW + 1 - period));
+            }
+            // a periodic orbit without drift is not a highway, but ends the run as well
+            break;
+          }
+        } else {
+          period = 0;
+          final int seen = (int) (hash >>> (64 - TABLE_BITS));
+          if (seenHashes[seen] == hash && seenSteps[seen] > step - MAXIMUM_PERIOD) {
+            period = step - seenSteps[seen];
+            repetitions = 0;
+          }
+          seenHashes[seen] = hash;
+          seenSteps[seen] = step;
+        }
+        hashes[slot] = hash;
+        xs[slot] = unwrappedX;
+        ys[slot] = unwrappedY;
+      }
+      visitedCells.add(visitedCount);
+    }
+
+  }
+
+  /** Returns the base raised to the exponent modulo 2^64. */
+  private static long power(long base, int exponent) {
+    long result = 1;
+    for (int i = 0; i < exponent; i++) {
+      result *= base;
+    }
+    return result;
+  }
+
+}
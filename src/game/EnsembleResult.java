@@ -0,0 +1,76 @@
+package game;
+
+/**
+ * The aggregated statistics of all runs of an {@code Ensemble}.
+ */
+public class EnsembleResult {
+
+  /**
+   * The number of runs.
+   */
+  private final int runs;
+
+  /**
+   * The step at which the ant started a highway, over all runs that reached one.
+   */
+  private final RunningStatistics timeToHighway;
+
+  /**
+   * The number of distinct cells visited by the ant, over all runs.
+   */
+  private final RunningStatistics visitedCells;
+
+  /**
+   * The time spent computing all runs in nanoseconds.
+   */
+  private final long duration;
+
+  /**
+   * Creates a new {@code EnsembleResult}.
+   */
+  EnsembleResult(int runs, RunningStatistics timeToHighway, RunningStatistics visitedCells,
+      long duration) {
+    this.runs = runs;
+    this.timeToHighway = timeToHighway;
+    this.visitedCells = visitedCells;
+    this.duration = duration;
+  }
+
+  /**
+   * Returns the number of runs.
+   */
+  public int getRuns() {
+    return runs;
+  }
+
+  /**
+   * Returns the number of runs in which the ant built a highway within the step budget.
+   */
+  public long getHighways() {
+    return timeToHighway.getCount();
+  }
+
+  /**
+   * Returns the statistics of the step at which the ant started its highway, over all runs that
+   * reached one.
+   */
+  public RunningStatistics getTimeToHighway() {
+    return timeToHighway;
+  }
+
+  /**
+   * Returns the statistics of the number of distinct cells the ant visited until it started its
+   * highway or used up the step budget, over all runs.
+   */
+  public RunningStatistics getVisitedCells() {
+    return visitedCells;
+  }
+
+  /**
+   * Returns the time spent computing all runs in nanoseconds.
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+}
@@ -1,7 +1,8 @@
 package game;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
 
 /**
  * An interface for all classes implementing the game Langton's Ant. Specifies all operations that
@@ -9,7 +10,7 @@ import java.util.Map;
  * grid in a specified way and switches the color of the positions it visited. The game can also be
  * described as cellular automaton and is Turing complete.
  */
-public interface Grid {
+public interface Grid extends CellView {
 
   /**
    * Adds a new {@code Ant} to the {@code Grid}.
@@ -20,11 +21,6 @@ public interface Grid {
    */
   void setAnt(Ant object, int col, int row);
 
-  /**
-   * Returns all ants that are currently on the grid.
-   */
-  Map<Coordinate, Ant> getAnts();
-
   /**
    * Deletes all ants on the grid.
    */
@@ -43,21 +39,27 @@ public interface Grid {
   void performStep(int number);
 
   /**
-   * Resets the current {@code Grid} by a given number of rounds.
+   * Computes rounds until the given condition holds after a round or the given number of rounds is
+   * computed, whichever comes first. At least one round is computed unless the number is zero. The
+   * condition is checked inside of the computation, thus the rounds stop at the exact round the
+   * condition holds at.
    * 
-   * @param number the number of rounds to be resetted
+   * @param condition the condition to stop at
+   * @param maximum the non-negative maximum number of rounds
+   * @return {@code true} if the condition holds, {@code false} if the maximum number of rounds was
+   *         computed without the condition holding
+   * @throws IllegalStateException if there is no ant on the grid
+   * @throws IndexOutOfBoundsException if the cell or region of the condition is out of range
+   * @throws IllegalArgumentException if the state of the condition does not exist
    */
-  void reset(int number);
+  boolean performStepsUntil(StepPredicate condition, int maximum);
 
   /**
-   * Returns the width (x-Dimension) of the {@code Grid}.
-   */
-  int getWidth();
-
-  /**
-   * Returns the height (y-Dimension) of the grid.
+   * Resets the current {@code Grid} by a given number of rounds.
+   * 
+   * @param number the number of rounds to be resetted
    */
-  int getHeight();
+  void reset(int number);
 
   /**
    * Returns the column at the given x-Coordinate.
@@ -73,6 +75,22 @@ public interface Grid {
    */
   List<Cell> getRow(int y);
 
+  /**
+   * Returns whether all cells of this and another {@code Grid} are in the same state. Grids of
+   * different sizes are never equal.
+   * 
+   * @param other the {@code Grid} to be compared
+   */
+  boolean hasEqualCells(Grid other);
+
+  /**
+   * Returns the number of cells that are in a different state in this and another {@code Grid}.
+   * 
+   * @param other the {@code Grid} to be compared, must have the same size
+   * @throws IllegalArgumentException if the sizes of the grids differ
+   */
+  long countDifferences(Grid other);
+
   /**
    * Changes the size of the {@code Grid}.
    * 
@@ -87,7 +105,142 @@ public interface Grid {
   void clear();
 
   /**
-   * Returns the current number of steps.
+   * Returns the current number of steps. The number is an int, thus a grid computes at most
+   * {@code Integer.MAX_VALUE} steps, although a journal counts its steps as long.
    */
   int getStepCount();
+
+  /**
+   * Returns the state configuration the {@code Grid} was created with, see {@code Rule}.
+   */
+  String getRule();
+
+  /**
+   * Returns the number of states a cell of the {@code Grid} can take.
+   */
+  int getNumberOfStates();
+
+  /**
+   * Returns the number of cells that are currently in the given state. The counts are maintained
+   * while the game is computed, thus no cell has to be visited.
+   * 
+   * @param state the state, between 0 and {@code getNumberOfStates() - 1}
+   */
+  int getPopulation(int state);
+
+  /**
+   * Returns the number of cells in the given state inside of a rectangle. With the region index
+   * enabled only the cells along the border of the rectangle are visited, otherwise every cell.
+   * 
+   * @param state the state, between 0 and {@code getNumberOfStates() - 1}
+   * @param x the x-Coordinate of the left column of the rectangle
+   * @param y the y-Coordinate of the top row of the rectangle
+   * @param width the non-negative number of columns of the rectangle
+   * @param height the non-negative number of rows of the rectangle
+   * @throws IndexOutOfBoundsException if the rectangle is not inside of the {@code Grid}
+   */
+  int getPopulation(int state, int x, int y, int width, int height);
+
+  /**
+   * Sets the state of a cell. Since the change is no round of the game, the {@code Grid} cannot be
+   * reset to a round before the change afterwards.
+   * 
+   * @param x the x-Coordinate of the cell
+   * @param y the y-Coordinate of the cell
+   * @param state the new state, between 0 and {@code getNumberOfStates() - 1}
+   * @throws IndexOutOfBoundsException if the cell is not inside of the {@code Grid}
+   */
+  void setState(int x, int y, int state);
+
+  /**
+   * Returns a new {@code Grid} with the same cells, ant and number of rounds, which can be
+   * computed independently of this one. Both share the cells copy-on-write, thus a fork only costs
+   * memory for the cells either of them changes afterwards. The fork cannot be reset to a round
+   * before it was created. Tracked visits and journals are not forked.
+   */
+  Grid fork();
+
+  /**
+   * Returns a new {@code Grid} like {@code fork()}, which computes the rounds with another rule.
+   * 
+   * @param states the state configuration of the fork, see {@code Rule}
+   * @throws IllegalArgumentException if the state configuration is invalid or does not have all
+   *         states of the cells or the ant
+   */
+  Grid fork(String states);
+
+  /**
+   * Enables or disables the index counting the cells in each state inside of rectangles, see
+   * {@code getPopulation(int, int, int, int, int)}. The index is updated with every changed cell,
+   * which slows down the computation of rounds.
+   * 
+   * @param enabled {@code true} to maintain the index, {@code false} to discard it
+   */
+  void setRegionIndex(boolean enabled);
+
+  /**
+   * Returns a 64-bit hash of the states of all cells and the position and orientation of the ant.
+   * Two configurations with the same hash are identical with very high probability. The hash is
+   * maintained while the game is computed, thus no cell has to be visited.
+   */
+  long getHash();
+
+  /**
+   * Starts streaming every move of the ant into a {@code TrajectoryJournal} file, which can be read
+   * by a {@code TrajectoryReader}. Rewinding, resizing or clearing the {@code Grid} stops the
+   * journal, since the recorded trajectory does not continue afterwards.
+   * 
+   * <p>While the journal is written the moves are no longer saved in memory, resetting replays them
+   * from the file instead, which therefore has to be kept. Only one journal file is replayed:
+   * starting another journal or resizing the {@code Grid} makes the current round the earliest one
+   * it can be reset to.
+   * 
+   * @param file the journal file, an existing file is overwritten
+   * @throws IOException if the file cannot be created
+   * @throws IllegalStateException if there is no ant on the grid
+   */
+  void startJournal(Path file) throws IOException;
+
+  /**
+   * Writes all recorded moves and closes the journal file. Does nothing if no journal is written.
+   * 
+   * @throws IOException if writing the journal failed
+   */
+  void stopJournal() throws IOException;
+
+  /**
+   * Starts writing checkpoints of the cells, the ant, the number of rounds and the saved moves into
+   * a directory, after the given number of rounds or the given time, whichever comes first. A
+   * checkpoint is copied while the rounds are computed and written in the background, a crash
+   * while writing leaves the previous checkpoint intact. See {@code Board.resume}. If writing a
+   * checkpoint fails, computing the next rounds throws an {@code UncheckedIOException} and no
+   * further checkpoints are written.
+   * 
+   * @param directory the directory the checkpoints are written to, it is created if necessary
+   * @param stepInterval the non-negative number of rounds between two checkpoints, 0 for none
+   * @param timeInterval the non-negative time between two checkpoints in milliseconds, 0 for none
+   * @throws IOException if the directory cannot be created
+   */
+  void startCheckpoints(Path directory, int stepInterval, long timeInterval) throws IOException;
+
+  /**
+   * Writes a final checkpoint of the current round, waits until it is written and stops writing
+   * checkpoints. Does nothing if no checkpoints are written.
+   * 
+   * @throws IOException if writing any checkpoint failed
+   */
+  void stopCheckpoints() throws IOException;
+
+  /**
+   * Enables or disables tracking how often and when each cell is visited by the ant. Tracking
+   * starts with no visited cells, disabling it discards all tracked visits.
+   * 
+   * @param enabled {@code true} to track visits, {@code false} to stop tracking
+   */
+  void setVisitTracking(boolean enabled);
+
+  /**
+   * Returns the tracked visits or {@code null} if visits are not tracked.
+   */
+  VisitMap getVisitMap();
 }
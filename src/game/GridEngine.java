@@ -0,0 +1,26 @@
+package game;
+
+/**
+ * A backend computing the game behind the {@code Grid} interface. Engines are selected by their
+ * name when a board is created, see {@code GridEngines}. Further engines can be added as service
+ * providers of this interface, i.e. by listing the implementing classes in a file
+ * {@code META-INF/services/game.GridEngine} on the class path.
+ */
+public interface GridEngine {
+
+  /**
+   * Returns the unique name the engine is selected by, e.g. "reference".
+   */
+  String getName();
+
+  /**
+   * Creates a new {@code Grid} with all cells in state 0 and no ant.
+   * 
+   * @param width positive width of the {@code Grid}
+   * @param height positive height of the {@code Grid}
+   * @param states the state configuration, see {@code Rule}
+   * @return the newly created {@code Grid}
+   * @throws IllegalArgumentException if the state configuration is invalid
+   */
+  Grid create(int width, int height, String states);
+}
@@ -0,0 +1,190 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Finds the available {@code GridEngine}s and checks them against the reference engine. The
+ * built-in engines are always available, further engines are discovered by the
+ * {@code ServiceLoader}.
+ */
+public final class GridEngines {
+
+  /**
+   * The name of the engine computing every round by the generic loop of {@code Board}.
+   */
+  public static final String REFERENCE = "reference";
+
+  /**
+   * The name of the engine using step loops specialised for the rule where possible, the default.
+   */
+  public static final String KERNEL = "kernel";
+
+  /**
+   * All available engines by their names, the built-in engines first.
+   */
+  private static final Map<String, GridEngine> ENGINES = loadEngines();
+
+  // the number of rounds between two comparisons of all cells by check
+  private static final int CELL_CHECK_ROUNDS = 1024;
+
+  private GridEngines() {
+    // generating objects of this class is not intended
+    throw new AssertionError();
+  }
+
+  /** Returns the built-in engines and the engines of all service providers. */
+  private static Map<String, GridEngine> loadEngines() {
+    final Map<String, GridEngine> engines = new LinkedHashMap<>();
+    engines.put(REFERENCE, new BoardEngine(REFERENCE, false));
+    engines.put(KERNEL, new BoardEngine(KERNEL, true));
+    for (GridEngine engine : ServiceLoader.load(GridEngine.class)) {
+      engines.putIfAbsent(engine.getName(), engine);
+    }
+    return Collections.unmodifiableMap(engines);
+  }
+
+  /**
+   * Returns the names of all available engines.
+   */
+  public static List<String> getNames() {
+    return new ArrayList<>(ENGINES.keySet());
+  }
+
+  /**
+   * Returns the engine with the given name.
+   * 
+   * @param name the name of the engine, see {@code getNames()}
+   * @return the engine
+   * @throws IllegalArgumentException if there is no engine with the given name
+   */
+  public static GridEngine get(String name) {
+    final GridEngine engine = ENGINES.get(name);
+    if (engine == null) {
+      throw new IllegalArgumentException("Unknown engine: " + name);
+    }
+    return engine;
+  }
+
+  /**
+   * Returns the default engine.
+   */
+  public static GridEngine getDefault() {
+    return ENGINES.get(KERNEL);
+  }
+
+  /**
+   * Computes the same game with an engine and the reference engine in lockstep and compares them.
+   * Both start with a copy of the cells and the ant of a {@code Grid}. After every round the ants
+   * and the cell the ant left are compared, all cells every {@code CELL_CHECK_ROUNDS} rounds and
+   * after the last one. Thus a round changing another cell is only found up to
+   * {@code CELL_CHECK_ROUNDS} rounds later.
+   * 
+   * @param engine the engine to be checked
+   * @param start the {@code Grid} whose cells and ant both engines start with, it is not changed
+   * @param steps non-negative number of rounds to be compared
+   * @return the first round after which the engines differ or -1 if they agree
+   */
+  public static int check(GridEngine engine, Grid start, int steps) {
+    final Grid reference = copy(get(REFERENCE), start);
+    final Grid checked = copy(engine, start);
+    final int referenceStart = reference.getStepCount();
+    final int checkedStart = checked.getStepCount();
+
+    for (int step = 1; step <= steps; step++) {
+      // the ant changes the cell it leaves
+      final Iterator<Coordinate> ants = reference.getAnts().keySet().iterator();
+      final Coordinate cell = ants.hasNext() ? ants.next() : new Coordinate(0, 0);
+      final int x = cell.getX();
+      final int y = cell.getY();
+      reference.performStep();
+      checked.performStep();
+      if (reference.getStepCount() - referenceStart != checked.getStepCount() - checkedStart
+          || reference.getState(x, y) != checked.getState(x, y)
+          || !hasEqualAnts(reference, checked)
+          || (step % CELL_CHECK_ROUNDS == 0 || step == steps)
+              && !reference.hasEqualCells(checked)) {
+        return step;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns a new {@code Grid} of an engine with the cells and the ant of another one. */
+  private static Grid copy(GridEngine engine, Grid start) {
+    if (engine instanceof BoardEngine && start instanceof Board) {
+      // the fork shares the cells with the board until they change
+      final Board board = (Board) start.fork();
+      board.setKernelEnabled(((BoardEngine) engine).kernel);
+      return board;
+    }
+
+    final Grid copy = engine.create(start.getWidth(), start.getHeight(), start.getRule());
+    for (int y = 0; y < start.getHeight(); y++) {
+      for (int x = 0; x < start.getWidth(); x++) {
+        final int state = start.getState(x, y);
+        if (state != 0) {
+          copy.setState(x, y, state);
+        }
+      }
+    }
+    for (Ant ant : start.getAnts().values()) {
+      copy.setAnt(Ant.copyOf(ant), ant.getX(), ant.getY());
+    }
+    return copy;
+  }
+
+  /** Returns whether the ants of two grids are at the same cells, orientations and states. */
+  private static boolean hasEqualAnts(Grid first, Grid second) {
+    final Map<Coordinate, Ant> firstAnts = first.getAnts();
+    final Map<Coordinate, Ant> secondAnts = second.getAnts();
+    if (!firstAnts.keySet().equals(secondAnts.keySet())) {
+      return false;
+    }
+    for (Map.Entry<Coordinate, Ant> entry : firstAnts.entrySet()) {
+      final Ant ant = entry.getValue();
+      final Ant other = secondAnts.get(entry.getKey());
+      if (ant.getOrientation() != other.getOrientation() || ant.getState() != other.getState()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * An engine creating {@code Board}s.
+   */
+  private static final class BoardEngine implements GridEngine {
+
+    private final String name;
+
+    /**
+     * Saves whether the boards use step loops specialised for their rule.
+     */
+    private final boolean kernel;
+
+    BoardEngine(String name, boolean kernel) {
+      this.name = name;
+      this.kernel = kernel;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public Grid create(int width, int height, String states) {
+      final Board board = Board.create(width, height, states);
+      board.setKernelEnabled(kernel);
+      return board;
+    }
+
+  }
+
+}
@@ -0,0 +1,60 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * Compares the step loops specialised for a rule with the generic loop of the {@code Board}.
+ * Usage: {@code KernelBenchmark [steps] [rules...]}, by default 10^7 steps of a few classic rules
+ * are computed on a 1000 x 1000 board.
+ */
+public final class KernelBenchmark {
+
+  // size of the benchmarked boards
+  private static final int SIZE = 1000;
+
+  // number of measured runs per rule and loop, the first one is a warmup
+  private static final int RUNS = 4;
+
+  private KernelBenchmark() {
+    // generating objects of this class is not intended
+    throw new AssertionError();
+  }
+
+  /**
+   * Runs the benchmark and prints the steps per second of both loops for every rule.
+   * 
+   * @param args the number of steps and the rules to be benchmarked
+   */
+  public static void main(String[] args) {
+    final int steps = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+    final String[] rules =
+        args.length > 1 ? Arrays.copyOfRange(args, 1, args.length)
+            : new String[] {"RL", "RLR", "LLRR", "RRLLLRLLLRRR"};
+
+    for (final String rule : rules) {
+      double generic = 0;
+      double specialised = 0;
+      for (int run = 0; run < RUNS; run++) {
+        final double genericRate = measure(rule, steps, false);
+        final double specialisedRate = measure(rule, steps, true);
+        if (run > 0) {
+          generic = Math.max(generic, genericRate);
+          specialised = Math.max(specialised, specialisedRate);
+        }
+      }
+      System.out.printf("%-14s generic %,14.0f steps/s  specialised %,14.0f steps/s  (%.2fx)%n",
+          rule, generic, specialised, specialised / generic);
+    }
+  }
+
+  /** Computes the given number of steps and returns the steps per second. */
+  private static double measure(String rule, int steps, boolean specialised) {
+    final Board board = Board.create(SIZE, SIZE, rule);
+    board.setKernelEnabled(specialised);
+    board.setAnt(Ant.create(SIZE / 2, SIZE / 2), SIZE / 2, SIZE / 2);
+    final long start = System.nanoTime();
+    board.performStep(steps);
+    return steps * 1e9 / (System.nanoTime() - start);
+  }
+
+}
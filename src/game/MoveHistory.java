@@ -0,0 +1,145 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * The saved moves of an ant, packed into one int array. Every move takes three ints: the x- and
+ * y-Coordinate of the ant before the move and its orientation (lower 2 bits) together with its
+ * state. Thus a move costs 12 bytes instead of an {@code Ant} and a list node, and saving a move
+ * only allocates when the array grows.
+ */
+final class MoveHistory {
+
+  // the number of ints per move
+  private static final int MOVE_LENGTH = 3;
+
+  // the number of moves the array initially holds
+  private static final int INITIAL_CAPACITY = 1024;
+
+  // the largest number of moves, bounded by the maximum length of an array
+  private static final int MAXIMUM_CAPACITY = (Integer.MAX_VALUE - 8) / MOVE_LENGTH;
+
+  /**
+   * The packed moves.
+   */
+  private int[] moves;
+
+  /**
+   * The number of saved moves.
+   */
+  private int size;
+
+  /**
+   * Creates a new empty {@code MoveHistory}.
+   */
+  MoveHistory() {
+    moves = new int[INITIAL_CAPACITY * MOVE_LENGTH];
+  }
+
+  /**
+   * Saves a move.
+   *
+   * @param x the x-Coordinate of the ant before the move
+   * @param y the y-Coordinate of the ant before the move
+   * @param orientation the index of the orientation of the ant before the move
+   * @param state the state of the ant before the move
+   */
+  void add(int x, int y, int orientation, int state) {
+    final int offset = size * MOVE_LENGTH;
+    if (offset == moves.length) {
+      grow();
+    }
+    moves[offset] = x;
+    moves[offset + 1] = y;
+    moves[offset + 2] = orientation | state << 2;
+    size++;
+  }
+
+  /**
+   * Saves the move of an ant before it is computed.
+   *
+   * @param ant the ant
+   */
+  void add(Ant ant) {
+    add(ant.getX(), ant.getY(), ant.getOrientation().ordinal(), ant.getState());
+  }
+
+  /** Doubles the capacity of the array. */
+  private void grow() {
+    if (size == MAXIMUM_CAPACITY) {
+      throw new IllegalStateException("Too many saved moves");
+    }
+    final int capacity = (int) Math.min(2L * size, MAXIMUM_CAPACITY);
+    moves = Arrays.copyOf(moves, capacity * MOVE_LENGTH);
+  }
+
+  /**
+   * Returns the number of saved moves.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Removes all moves from the given index on.
+   *
+   * @param length the number of moves kept, at most {@code size()}
+   */
+  void truncate(int length) {
+    size = length;
+  }
+
+  /**
+   * Removes all moves and releases the array.
+   */
+  void clear() {
+    size = 0;
+    if (moves.length > INITIAL_CAPACITY * MOVE_LENGTH) {
+      moves = new int[INITIAL_CAPACITY * MOVE_LENGTH];
+    }
+  }
+
+  /**
+   * Returns the ant before the move with the given index.
+   *
+   * @param index the index of the move
+   */
+  Ant get(int index) {
+    final int offset = index * MOVE_LENGTH;
+    return Ant.create(moves[offset], moves[offset + 1], moves[offset + 2] & 3,
+        moves[offset + 2] >>> 2);
+  }
+
+  /**
+   * Shifts the positions of all moves, e.g. after the grid is resized.
+   *
+   * @param x the number of columns the moves are shifted by
+   * @param y the number of rows the moves are shifted by
+   */
+  void translate(int x, int y) {
+    final int length = size * MOVE_LENGTH;
+    for (int offset = 0; offset < length; offset += MOVE_LENGTH) {
+      moves[offset] += x;
+      moves[offset + 1] += y;
+    }
+  }
+
+  /**
+   * Returns the first moves as four ints per move: the x- and y-Coordinate, the index of the
+   * orientation and the state.
+   *
+   * @param length the number of moves, at most {@code size()}
+   */
+  int[] toArray(int length) {
+    final int[] array = new int[4 * length];
+    for (int i = 0; i < length; i++) {
+      final int offset = i * MOVE_LENGTH;
+      array[4 * i] = moves[offset];
+      array[4 * i + 1] = moves[offset + 1];
+      array[4 * i + 2] = moves[offset + 2] & 3;
+      array[4 * i + 3] = moves[offset + 2] >>> 2;
+    }
+    return array;
+  }
+
+}
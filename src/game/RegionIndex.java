@@ -0,0 +1,160 @@
+package game;
+
+/**
+ * Counts the cells in each state inside of rectangles without visiting every cell. For every state
+ * a two-dimensional Fenwick tree holds the number of cells in this state per chunk of the
+ * {@code StateGrid}, it is updated whenever a cell changes its state. A rectangle is split into
+ * the chunks it covers entirely, which are summed up by the trees in logarithmic time, and the
+ * cells along its border, which are counted directly. Thus a query takes
+ * O(log(chunks) + CHUNK_SIZE * (width + height)) instead of O(width * height).
+ */
+final class RegionIndex {
+
+  /**
+   * The number of columns of chunks.
+   */
+  private final int chunkColumns;
+
+  /**
+   * The number of rows of chunks.
+   */
+  private final int chunkRows;
+
+  /**
+   * One Fenwick tree per state, indexed by {@code (chunkY + 1) * (chunkColumns + 1) + chunkX + 1}.
+   */
+  private final int[][] trees;
+
+  /**
+   * Creates a new {@code RegionIndex} of the current states of the cells of a grid.
+   *
+   * @param grid the cells
+   * @param colors the number of states a cell can take
+   */
+  RegionIndex(StateGrid grid, int colors) {
+    chunkColumns = grid.getChunkColumns();
+    chunkRows = grid.getChunkRows();
+    trees = new int[colors][(chunkRows + 1) * (chunkColumns + 1)];
+
+    final int[] population = new int[colors];
+    for (int chunkY = 0; chunkY < chunkRows; chunkY++) {
+      for (int chunkX = 0; chunkX < chunkColumns; chunkX++) {
+        grid.countStates(chunkX, chunkY, population);
+        for (int state = 0; state < colors; state++) {
+          trees[state][node(chunkX + 1, chunkY + 1)] = population[state];
+        }
+      }
+    }
+    // build the trees in linear time, first along the rows then along the columns
+    for (final int[] tree : trees) {
+      for (int i = 1; i <= chunkRows; i++) {
+        for (int j = 1; j <= chunkColumns; j++) {
+          final int parent = j + (j & -j);
+          if (parent <= chunkColumns) {
+            tree[node(parent, i)] += tree[node(j, i)];
+          }
+        }
+      }
+      for (int i = 1; i <= chunkRows; i++) {
+        final int parent = i + (i & -i);
+        if (parent <= chunkRows) {
+          for (int j = 1; j <= chunkColumns; j++) {
+            tree[node(j, parent)] += tree[node(j, i)];
+          }
+        }
+      }
+    }
+  }
+
+  /** Returns the index of a node of a tree. */
+  private int node(int column, int row) {
+    return row * (chunkColumns + 1) + column;
+  }
+
+  /**
+   * Records that a cell changed its state.
+   *
+   * @param x the x-Coordinate of the cell
+   * @param y the y-Coordinate of the cell
+   * @param previousState the state before the change
+   * @param state the state after the change
+   */
+  void update(int x, int y, int previousState, int state) {
+    if (previousState == state) {
+      return;
+    }
+    final int chunkX = (x >> StateGrid.CHUNK_BITS) + 1;
+    final int chunkY = (y >> StateGrid.CHUNK_BITS) + 1;
+    for (int i = chunkY; i <= chunkRows; i += i & -i) {
+      for (int j = chunkX; j <= chunkColumns; j += j & -j) {
+        trees[previousState][node(j, i)]--;
+        trees[state][node(j, i)]++;
+      }
+    }
+  }
+
+  /** Returns the number of cells in the given state in the chunks left of and above a chunk. */
+  private int prefix(int state, int chunkX, int chunkY) {
+    final int[] tree = trees[state];
+    int count = 0;
+    for (int i = chunkY; i > 0; i -= i & -i) {
+      for (int j = chunkX; j > 0; j -= j & -j) {
+        count += tree[node(j, i)];
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of cells in the given state inside of a rectangle.
+   *
+   * @param grid the cells this index is maintained for
+   * @param state the state
+   * @param x the x-Coordinate of the left column of the rectangle
+   * @param y the y-Coordinate of the top row of the rectangle
+   * @param width the number of columns of the rectangle
+   * @param height the number of rows of the rectangle
+   */
+  int count(StateGrid grid, int state, int x, int y, int width, int height) {
+    final int endX = x + width;
+    final int endY = y + height;
+    // the chunks covered entirely
+    final int fromChunkX = (x + StateGrid.CHUNK_MASK) >> StateGrid.CHUNK_BITS;
+    final int fromChunkY = (y + StateGrid.CHUNK_MASK) >> StateGrid.CHUNK_BITS;
+    final int toChunkX = endX >> StateGrid.CHUNK_BITS;
+    final int toChunkY = endY >> StateGrid.CHUNK_BITS;
+    if (fromChunkX >= toChunkX || fromChunkY >= toChunkY) {
+      return countCells(grid, state, x, y, endX, endY);
+    }
+
+    final int innerX = fromChunkX << StateGrid.CHUNK_BITS;
+    final int innerY = fromChunkY << StateGrid.CHUNK_BITS;
+    final int innerEndX = toChunkX << StateGrid.CHUNK_BITS;
+    final int innerEndY = toChunkY << StateGrid.CHUNK_BITS;
+    return prefix(state, toChunkX, toChunkY) - prefix(state, fromChunkX, toChunkY)
+        - prefix(state, toChunkX, fromChunkY) + prefix(state, fromChunkX, fromChunkY)
+        + countCells(grid, state, x, y, endX, innerY)
+        + countCells(grid, state, x, innerEndY, endX, endY)
+        + countCells(grid, state, x, innerY, innerX, innerEndY)
+        + countCells(grid, state, innerEndX, innerY, endX, innerEndY);
+  }
+
+  /**
+   * Returns the number of cells in the given state inside of a rectangle by visiting every cell.
+   *
+   * @param grid the cells
+   * @param state the state
+   * @param x the x-Coordinate of the left column of the rectangle (inclusive)
+   * @param y the y-Coordinate of the top row of the rectangle (inclusive)
+   * @param endX the x-Coordinate of the right column of the rectangle (exclusive)
+   * @param endY the y-Coordinate of the bottom row of the rectangle (exclusive)
+   */
+  static int countCells(StateGrid grid, int state, int x, int y, int endX, int endY) {
+    int count = 0;
+    for (int row = y; row < endY; row++) {
+      count += grid.countStates(state, row, x, endX);
+    }
+    return count;
+  }
+
+}
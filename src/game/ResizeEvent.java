@@ -0,0 +1,21 @@
+package game;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted for every call of {@code Board.resize}. The inherited dimensions are the new ones.
+ */
+@Name("game.Resize")
+@Label("Resize")
+@Description("Resizing the board")
+class ResizeEvent extends BoardEvent {
+
+  @Label("Previous Width")
+  int previousWidth;
+
+  @Label("Previous Height")
+  int previousHeight;
+
+}
@@ -0,0 +1,18 @@
+package game;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted for every call of {@code Board.reset} i.e. whenever the board is rewound.
+ */
+@Name("game.Rewind")
+@Label("Rewind")
+@Description("Rewinding the board by a number of steps")
+class RewindEvent extends BoardEvent {
+
+  @Label("Steps")
+  int steps;
+
+}
@@ -0,0 +1,238 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The rule of a {@code Board} compiled into a flat transition table indexed by the state of the ant
+ * and the state (color) of the cell. Two notations are supported:
+ *
+ * <ul>
+ * <li>Classic ants e.g. "RL": one letter per color, the ant turns right (R) or left (L) after
+ * entering a cell of this color. The ant has no state of its own.</li>
+ * <li>Turmites e.g. "1L1,1L1/1R1,0N0": the transitions of each ant state are separated by '/', each
+ * state lists one transition per color separated by ','. A transition consists of the new color,
+ * the turn (R: right, L: left, N: none, U: u-turn) and the new state of the ant. On each step the
+ * ant turns, sets the color of its cell, changes its state and moves forward.</li>
+ * </ul>
+ */
+public final class Rule {
+
+  // possible turns, the number of quarter turns clockwise
+  static final int TURN_NONE = 0;
+  static final int TURN_RIGHT = 1;
+  static final int TURN_AROUND = 2;
+  static final int TURN_LEFT = 3;
+
+  // currently possible number of colors
+  public static final int MINIMUM_NUMBER_OF_COLORS = 2;
+  public static final int MAXIMUM_NUMBER_OF_COLORS = 12;
+
+  // largest possible number of states of a turmite
+  public static final int MAXIMUM_NUMBER_OF_ANT_STATES = 256;
+
+  // layout of a packed transition: new color (8 bits), turn (2 bits), new state of the ant
+  private static final int TURN_SHIFT = 8;
+  private static final int ANT_STATE_SHIFT = 10;
+
+  private static final Pattern TRANSITION = Pattern.compile("(\\d+)([RLNU])(\\d+)");
+
+  /**
+   * The textual representation of the rule.
+   */
+  private final String text;
+
+  /**
+   * The number of colors a cell can take.
+   */
+  private final int colors;
+
+  /**
+   * The number of states the ant can take.
+   */
+  private final int antStates;
+
+  /**
+   * The packed transitions, indexed by {@code antState * colors + color}.
+   */
+  private final int[] transitions;
+
+  /**
+   * Saves whether this is a classic ant, which turns after moving instead of before.
+   */
+  private final boolean classic;
+
+  /**
+   * Creates a new {@code Rule}.
+   */
+  private Rule(String text, int colors, int antStates, int[] transitions, boolean classic) {
+    this.text = text;
+    this.colors = colors;
+    this.antStates = antStates;
+    this.transitions = transitions;
+    this.classic = classic;
+  }
+
+  /**
+   * Parses a rule in classic or turmite notation.
+   * 
+   * @param text the rule e.g. "RL" or "1L1,1L1/1R1,0N0"
+   * @return the parsed {@code Rule}
+   * @throws IllegalArgumentException if the rule is invalid
+   */
+  public static Rule parse(String text) {
+    if (text.matches("[RL]+")) {
+      return parseClassic(text);
+    }
+    return parseTurmite(text);
+  }
+
+  /**
+   * Returns whether the given text is a valid rule in classic or turmite notation.
+   * 
+   * @param text the rule to be checked
+   */
+  public static boolean isValid(String text) {
+    try {
+      parse(text);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /** Parses a rule in classic notation. */
+  private static Rule parseClassic(String text) {
+    final int colors = text.length();
+    checkColors(colors);
+
+    final int[] transitions = new int[colors];
+    for (int color = 0; color < colors; color++) {
+      final int turn = text.charAt(color) == 'R' ? TURN_RIGHT : TURN_LEFT;
+      transitions[color] = pack((color + 1) % colors, turn, 0);
+    }
+    return new Rule(text, colors, 1, transitions, true);
+  }
+
+  /** Parses a rule in turmite notation. */
+  private static Rule parseTurmite(String text) {
+    final String[] states = text.split("/", -1);
+    final int colors = states[0].split(",", -1).length;
+    checkColors(colors);
+    if (states.length > MAXIMUM_NUMBER_OF_ANT_STATES) {
+      throw new IllegalArgumentException("Too many ant states: " + text);
+    }
+
+    final List<Integer> transitions = new ArrayList<>();
+    for (final String state : states) {
+      final String[] entries = state.split(",", -1);
+      if (entries.length != colors) {
+        throw new IllegalArgumentException("Different number of colors per state: " + text);
+      }
+      for (final String entry : entries) {
+        final Matcher matcher = TRANSITION.matcher(entry);
+        if (!matcher.matches()) {
+          throw new IllegalArgumentException("Invalid transition: " + entry);
+        }
+        final int newColor = parseNumber(matcher.group(1), colors);
+        final int newState = parseNumber(matcher.group(3), states.length);
+        transitions.add(pack(newColor, parseTurn(matcher.group(2).charAt(0)), newState));
+      }
+    }
+
+    final int[] table = new int[transitions.size()];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = transitions.get(i);
+    }
+    return new Rule(text, colors, states.length, table, false);
+  }
+
+  /** Checks the number of colors. */
+  private static void checkColors(int colors) {
+    if (colors < MINIMUM_NUMBER_OF_COLORS || colors > MAXIMUM_NUMBER_OF_COLORS) {
+      throw new IllegalArgumentException("Invalid number of colors: " + colors);
+    }
+  }
+
+  /** Parses a number that has to be less than the given bound. */
+  private static int parseNumber(String number, int bound) {
+    try {
+      final int value = Integer.parseInt(number);
+      if (value < bound) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    throw new IllegalArgumentException("Number out of range: " + number);
+  }
+
+  /** Returns the turn for the given letter. */
+  private static int parseTurn(char letter) {
+    switch (letter) {
+      case 'R':
+        return TURN_RIGHT;
+      case 'L':
+        return TURN_LEFT;
+      case 'U':
+        return TURN_AROUND;
+      default:
+        return TURN_NONE;
+    }
+  }
+
+  /** Packs a transition into a single int. */
+  private static int pack(int newColor, int turn, int newAntState) {
+    return newColor | turn << TURN_SHIFT | newAntState << ANT_STATE_SHIFT;
+  }
+
+  /** Returns the new color of a packed transition. */
+  static int newColor(int transition) {
+    return transition & 0xFF;
+  }
+
+  /** Returns the turn of a packed transition. */
+  static int turn(int transition) {
+    return (transition >>> TURN_SHIFT) & 3;
+  }
+
+  /** Returns the new state of the ant of a packed transition. */
+  static int newAntState(int transition) {
+    return transition >>> ANT_STATE_SHIFT;
+  }
+
+  /**
+   * Returns the number of colors a cell can take.
+   */
+  public int getColors() {
+    return colors;
+  }
+
+  /**
+   * Returns the number of states the ant can take.
+   */
+  public int getAntStates() {
+    return antStates;
+  }
+
+  /**
+   * Returns whether this is a classic ant, which turns after entering a cell instead of before
+   * leaving it.
+   */
+  public boolean isClassic() {
+    return classic;
+  }
+
+  /** Returns a copy of the packed transitions, indexed by {@code antState * colors + color}. */
+  int[] getTransitions() {
+    return transitions.clone();
+  }
+
+  @Override
+  public String toString() {
+    return text;
+  }
+
+}
@@ -0,0 +1,109 @@
+package game;
+
+/**
+ * Mean, variance and range of a stream of values, computed without keeping the values. Partial
+ * statistics of several threads can be merged.
+ */
+public final class RunningStatistics {
+
+  /**
+   * The number of values.
+   */
+  private long count;
+
+  /**
+   * The mean of all values.
+   */
+  private double mean;
+
+  /**
+   * The sum of the squared differences of all values from the mean.
+   */
+  private double squaredDifferences;
+
+  /**
+   * The smallest value.
+   */
+  private double minimum;
+
+  /**
+   * The largest value.
+   */
+  private double maximum;
+
+  /**
+   * Creates new {@code RunningStatistics} without any values.
+   */
+  RunningStatistics() {
+    minimum = Double.POSITIVE_INFINITY;
+    maximum = Double.NEGATIVE_INFINITY;
+  }
+
+  /** Adds a value (Welford's algorithm). */
+  void add(double value) {
+    count++;
+    final double difference = value - mean;
+    mean += difference / count;
+    squaredDifferences += difference * (value - mean);
+    minimum = Math.min(minimum, value);
+    maximum = Math.max(maximum, value);
+  }
+
+  /** Adds all values of other statistics (Chan's algorithm). */
+  void merge(RunningStatistics other) {
+    if (other.count == 0) {
+      return;
+    }
+    final long total = count + other.count;
+    final double difference = other.mean - mean;
+    mean += difference * other.count / total;
+    squaredDifferences +=
+        other.squaredDifferences + difference * difference * count * other.count / total;
+    count = total;
+    minimum = Math.min(minimum, other.minimum);
+    maximum = Math.max(maximum, other.maximum);
+  }
+
+  /**
+   * Returns the number of values.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the mean of all values, {@code NaN} if there are none.
+   */
+  public double getMean() {
+    return count == 0 ? Double.NaN : mean;
+  }
+
+  /**
+   * Returns the sample variance of all values, {@code NaN} if there are less than two.
+   */
+  public double getVariance() {
+    return count < 2 ? Double.NaN : squaredDifferences / (count - 1);
+  }
+
+  /**
+   * Returns the sample standard deviation of all values, {@code NaN} if there are less than two.
+   */
+  public double getStandardDeviation() {
+    return Math.sqrt(getVariance());
+  }
+
+  /**
+   * Returns the smallest value, {@code NaN} if there are none.
+   */
+  public double getMinimum() {
+    return count == 0 ? Double.NaN : minimum;
+  }
+
+  /**
+   * Returns the largest value, {@code NaN} if there are none.
+   */
+  public double getMaximum() {
+    return count == 0 ? Double.NaN : maximum;
+  }
+
+}
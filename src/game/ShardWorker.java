@@ -0,0 +1,278 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A worker process of a {@code ShardedSimulation}. The worker owns a vertical strip of columns of
+ * the board and computes the steps of all ants inside of it. Ants leaving the strip are sent back
+ * to the coordinator, which hands them to the owner of the entered column. Since an ant only reads
+ * the cell it stands on, handing the ant over replaces any exchange of halo cells: a classic ant
+ * that has not yet turned on the entered cell carries a pending turn to its new owner.
+ *
+ * <p>All messages start with a command byte and are answered synchronously, see the constants.
+ */
+public final class ShardWorker {
+
+  // initialize the strip: width, height, rule, first column, end column, cells
+  static final byte INIT = 1;
+
+  // add ants without computing anything: ants
+  static final byte ANTS = 2;
+
+  // start an epoch: steps per ant; answered with the ants leaving the strip
+  static final byte EPOCH = 3;
+
+  // continue an epoch: incoming ants; answered with the ants leaving the strip
+  static final byte ROUND = 4;
+
+  // answered with the cells of the strip and all ants
+  static final byte SNAPSHOT = 5;
+
+  // terminate the worker
+  static final byte QUIT = 6;
+
+  /**
+   * The width of the entire board.
+   */
+  private int width;
+
+  /**
+   * The height of the board.
+   */
+  private int height;
+
+  /**
+   * The first column of the strip.
+   */
+  private int firstColumn;
+
+  /**
+   * The column after the last column of the strip.
+   */
+  private int endColumn;
+
+  /**
+   * The states of the cells of the strip, row by row.
+   */
+  private byte[] cells;
+
+  private int colors;
+
+  private boolean classic;
+
+  private int[] transitions;
+
+  /**
+   * The ants inside of the strip.
+   */
+  private final List<ShardAnt> ants = new ArrayList<>();
+
+  private ShardWorker() {
+    // only created by main
+  }
+
+  /**
+   * Connects to the coordinator and answers its messages until it sends {@code QUIT}.
+   * 
+   * @param args the port of the coordinator on the loopback interface
+   * @throws IOException if the connection fails
+   */
+  public static void main(String[] args) throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]));
+        DataInputStream in =
+            new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+      socket.setTcpNoDelay(true);
+      new ShardWorker().serve(in, out);
+    }
+  }
+
+  /** Answers all messages of the coordinator. */
+  private void serve(DataInputStream in, DataOutputStream out) throws IOException {
+    while (true) {
+      final byte command = in.readByte();
+      switch (command) {
+        case INIT:
+          width = in.readInt();
+          height = in.readInt();
+          final Rule rule = Rule.parse(in.readUTF());
+          colors = rule.getColors();
+          classic = rule.isClassic();
+          transitions = rule.getTransitions();
+          firstColumn = in.readInt();
+          endColumn = in.readInt();
+          cells = new byte[(endColumn - firstColumn) * height];
+          in.readFully(cells);
+          break;
+        case ANTS:
+          ants.addAll(ShardAnt.readAll(in));
+          break;
+        case EPOCH:
+          final int steps = in.readInt();
+          for (ShardAnt ant : ants) {
+            ant.remaining += steps;
+          }
+          ShardAnt.writeAll(out, computeRound(new ArrayList<>()));
+          break;
+        case ROUND:
+          ShardAnt.writeAll(out, computeRound(ShardAnt.readAll(in)));
+          break;
+        case SNAPSHOT:
+          out.write(cells);
+          ShardAnt.writeAll(out, ants);
+          break;
+        case QUIT:
+          return;
+        default:
+          throw new IOException("Unknown command " + command);
+      }
+      out.flush();
+    }
+  }
+
+  /**
+   * Adds the incoming ants and computes the remaining steps of all ants. Returns the ants that
+   * left the strip.
+   */
+  private List<ShardAnt> computeRound(List<ShardAnt> incoming) {
+    for (ShardAnt ant : incoming) {
+      if (ant.pendingTurn) {
+        ant.orientation = (ant.orientation + Rule.turn(transitions[cell(ant.x, ant.y)])) & 3;
+        ant.pendingTurn = false;
+      }
+      ants.add(ant);
+    }
+    // a fixed order keeps the computation deterministic
+    ants.sort(Comparator.comparingInt(ant -> ant.id));
+
+    final List<ShardAnt> leaving = new ArrayList<>();
+    for (int i = 0; i < ants.size(); i++) {
+      final ShardAnt ant = ants.get(i);
+      boolean inside = true;
+      while (inside && ant.remaining > 0) {
+        inside = step(ant);
+      }
+      if (!inside) {
+        leaving.add(ant);
+      }
+    }
+    ants.removeAll(leaving);
+    return leaving;
+  }
+
+  /**
+   * Computes one step of an ant, exactly like the {@code Board}. Returns whether the ant is still
+   * inside of the strip.
+   */
+  private boolean step(ShardAnt ant) {
+    final int index = ant.y * (endColumn - firstColumn) + ant.x - firstColumn;
+    final int state = cells[index] & 0xFF;
+    final int transition = transitions[ant.state * colors + state];
+    if (!classic) {
+      ant.orientation = (ant.orientation + Rule.turn(transition)) & 3;
+      ant.state = Rule.newAntState(transition);
+    }
+    cells[index] = (byte) Rule.newColor(transition);
+    ant.remaining--;
+
+    // move the ant by one step on the torus
+    switch (ant.orientation) {
+      case 0: // NORTH
+        ant.y = ant.y == 0 ? height - 1 : ant.y - 1;
+        break;
+      case 1: // EAST
+        ant.x = ant.x + 1 == width ? 0 : ant.x + 1;
+        break;
+      case 2: // SOUTH
+        ant.y = ant.y + 1 == height ? 0 : ant.y + 1;
+        break;
+      default: // WEST
+        ant.x = ant.x == 0 ? width - 1 : ant.x - 1;
+        break;
+    }
+
+    if (ant.x < firstColumn || ant.x >= endColumn) {
+      // the ant left the strip, the owner of the entered cell continues
+      ant.pendingTurn = classic;
+      return false;
+    } else if (classic) {
+      ant.orientation = (ant.orientation + Rule.turn(transitions[cell(ant.x, ant.y)])) & 3;
+    }
+    return true;
+  }
+
+  /** Returns the state of a cell of the strip. */
+  private int cell(int x, int y) {
+    return cells[y * (endColumn - firstColumn) + x - firstColumn] & 0xFF;
+  }
+
+  /**
+   * An ant as exchanged between the coordinator and the workers.
+   */
+  static final class ShardAnt {
+
+    int id;
+
+    int x;
+
+    int y;
+
+    int orientation;
+
+    int state;
+
+    /**
+     * The number of steps left in the current epoch.
+     */
+    int remaining;
+
+    /**
+     * Saves whether the ant left a strip and still has to turn on the entered cell.
+     */
+    boolean pendingTurn;
+
+    /** Reads a list of ants. */
+    static List<ShardAnt> readAll(DataInputStream in) throws IOException {
+      final int count = in.readInt();
+      final List<ShardAnt> result = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        final ShardAnt ant = new ShardAnt();
+        ant.id = in.readInt();
+        ant.x = in.readInt();
+        ant.y = in.readInt();
+        ant.orientation = in.readByte();
+        ant.state = in.readInt();
+        ant.remaining = in.readInt();
+        ant.pendingTurn = in.readBoolean();
+        result.add(ant);
+      }
+      return result;
+    }
+
+    /** Writes a list of ants. */
+    static void writeAll(DataOutputStream out, List<ShardAnt> ants) throws IOException {
+      out.writeInt(ants.size());
+      for (ShardAnt ant : ants) {
+        out.writeInt(ant.id);
+        out.writeInt(ant.x);
+        out.writeInt(ant.y);
+        out.writeByte(ant.orientation);
+        out.writeInt(ant.state);
+        out.writeInt(ant.remaining);
+        out.writeBoolean(ant.pendingTurn);
+      }
+    }
+
+  }
+
+}
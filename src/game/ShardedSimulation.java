@@ -0,0 +1,292 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coordinates a board with many ants that is split into vertical strips (shards), each computed by
+ * a separate worker process on the same host. The workers are started as {@code ShardWorker} with
+ * the class path of this JVM and talk to the coordinator over loopback sockets. The simulation
+ * advances in epochs: every ant computes the same number of steps per epoch, ants crossing the
+ * border of a strip are handed to the owner of the entered column in bulk rounds until all ants
+ * have finished the epoch. The computation is deterministic for a given number of shards, with a
+ * single ant it equals the {@code Board}.
+ */
+public class ShardedSimulation implements AutoCloseable {
+
+  // time to wait for a worker process to connect in milliseconds
+  private static final int CONNECT_TIMEOUT = 30_000;
+
+  /**
+   * The width of the board.
+   */
+  private final int width;
+
+  /**
+   * The height of the board.
+   */
+  private final int height;
+
+  /**
+   * The first column of each shard, followed by the width of the board.
+   */
+  private final int[] firstColumns;
+
+  /**
+   * The worker processes.
+   */
+  private final List<Process> processes;
+
+  /**
+   * The connections to the workers, in the order of the shards.
+   */
+  private final List<Socket> sockets;
+
+  private final List<DataInputStream> inputs;
+
+  private final List<DataOutputStream> outputs;
+
+  /**
+   * The number of ants added so far, used as id of the next ant.
+   */
+  private int numberOfAnts;
+
+  /**
+   * The number of steps computed by all ants together.
+   */
+  private long stepCount;
+
+  /**
+   * Creates a new {@code ShardedSimulation}, the workers are started by {@code create}.
+   */
+  private ShardedSimulation(int width, int height, int shards) {
+    this.width = width;
+    this.height = height;
+    this.firstColumns = new int[shards + 1];
+    for (int shard = 0; shard <= shards; shard++) {
+      firstColumns[shard] = (int) ((long) shard * width / shards);
+    }
+    this.processes = new ArrayList<>();
+    this.sockets = new ArrayList<>();
+    this.inputs = new ArrayList<>();
+    this.outputs = new ArrayList<>();
+  }
+
+  /**
+   * Starts the worker processes and distributes the cells and ants of a {@code Grid} among them.
+   * 
+   * @param grid the {@code Grid} to be copied
+   * @param states the state configuration of the grid, see {@code Rule}
+   * @param shards the positive number of worker processes, at most the width of the grid
+   * @return the newly created {@code ShardedSimulation}
+   * @throws IOException if a worker cannot be started
+   */
+  public static ShardedSimulation copyOf(Grid grid, String states, int shards)
+      throws IOException {
+    if (shards < 1 || shards > grid.getWidth()) {
+      throw new IllegalArgumentException("Invalid number of shards: " + shards);
+    }
+    final ShardedSimulation simulation =
+        new ShardedSimulation(grid.getWidth(), grid.getHeight(), shards);
+    try {
+      simulation.start(grid, states);
+      for (Map.Entry<Coordinate, Ant> entry : grid.getAnts().entrySet()) {
+        simulation.setAnt(entry.getValue(), entry.getKey().getX(), entry.getKey().getY());
+      }
+    } catch (IOException | RuntimeException e) {
+      simulation.close();
+      throw e;
+    }
+    return simulation;
+  }
+
+  /** Starts and initializes all workers. */
+  private void start(CellView grid, String states) throws IOException {
+    final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator
+        + "java";
+    try (ServerSocket server = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+      server.setSoTimeout(CONNECT_TIMEOUT);
+      for (int shard = 0; shard < firstColumns.length - 1; shard++) {
+        processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+            ShardWorker.class.getName(), Integer.toString(server.getLocalPort()))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start());
+        // workers are connected one after another, thus the order of the shards is kept
+        final Socket socket = server.accept();
+        socket.setTcpNoDelay(true);
+        sockets.add(socket);
+        inputs.add(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+        outputs.add(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+      }
+    }
+
+    for (int shard = 0; shard < outputs.size(); shard++) {
+      final int first = firstColumns[shard];
+      final int end = firstColumns[shard + 1];
+      final byte[] strip = new byte[(end - first) * height];
+      for (int y = 0; y < height; y++) {
+        for (int x = first; x < end; x++) {
+          strip[y * (end - first) + x - first] = (byte) grid.getState(x, y);
+        }
+      }
+
+      final DataOutputStream out = outputs.get(shard);
+      out.writeByte(ShardWorker.INIT);
+      out.writeInt(width);
+      out.writeInt(height);
+      out.writeUTF(states);
+      out.writeInt(first);
+      out.writeInt(end);
+      out.write(strip);
+      out.flush();
+    }
+  }
+
+  /**
+   * Adds a new {@code Ant}. Several ants may share a cell.
+   * 
+   * @param object the {@code Ant} to be added, its orientation and state are copied
+   * @param col x-Coordinate of the {@code Ant}
+   * @param row y-Coordinate of the {@code Ant}
+   * @throws IOException if the ant cannot be sent to its worker
+   */
+  public void setAnt(Ant object, int col, int row) throws IOException {
+    if (col < 0 || row < 0 || col >= width || row >= height) {
+      throw new IndexOutOfBoundsException("Ant out of range");
+    }
+    final ShardWorker.ShardAnt ant = new ShardWorker.ShardAnt();
+    ant.id = numberOfAnts++;
+    ant.x = col;
+    ant.y = row;
+    ant.orientation = object.getOrientation().ordinal();
+    ant.state = object.getState();
+
+    final DataOutputStream out = outputs.get(shardOf(col));
+    out.writeByte(ShardWorker.ANTS);
+    ShardWorker.ShardAnt.writeAll(out, List.of(ant));
+    out.flush();
+  }
+
+  /**
+   * Lets every ant compute the given number of steps and waits until all workers are done.
+   * 
+   * @param stepsPerAnt the non-negative number of steps of each ant
+   * @throws IOException if the communication with a worker fails
+   */
+  public void performSteps(int stepsPerAnt) throws IOException {
+    for (DataOutputStream out : outputs) {
+      out.writeByte(ShardWorker.EPOCH);
+      out.writeInt(stepsPerAnt);
+      out.flush();
+    }
+    List<List<ShardWorker.ShardAnt>> incoming = collectLeavingAnts();
+
+    while (!isEmpty(incoming)) {
+      for (int shard = 0; shard < outputs.size(); shard++) {
+        final DataOutputStream out = outputs.get(shard);
+        out.writeByte(ShardWorker.ROUND);
+        ShardWorker.ShardAnt.writeAll(out, incoming.get(shard));
+        out.flush();
+      }
+      incoming = collectLeavingAnts();
+    }
+    stepCount += (long) stepsPerAnt * numberOfAnts;
+  }
+
+  /** Reads the ants that left each shard and sorts them by the shard they entered. */
+  private List<List<ShardWorker.ShardAnt>> collectLeavingAnts() throws IOException {
+    final List<List<ShardWorker.ShardAnt>> incoming = new ArrayList<>();
+    for (int shard = 0; shard < inputs.size(); shard++) {
+      incoming.add(new ArrayList<>());
+    }
+    for (DataInputStream in : inputs) {
+      for (ShardWorker.ShardAnt ant : ShardWorker.ShardAnt.readAll(in)) {
+        incoming.get(shardOf(ant.x)).add(ant);
+      }
+    }
+    return incoming;
+  }
+
+  /** Returns whether all lists are empty. */
+  private static boolean isEmpty(List<List<ShardWorker.ShardAnt>> lists) {
+    for (List<ShardWorker.ShardAnt> list : lists) {
+      if (!list.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the shard owning the given column. */
+  private int shardOf(int column) {
+    int shard = 0;
+    while (firstColumns[shard + 1] <= column) {
+      shard++;
+    }
+    return shard;
+  }
+
+  /**
+   * Collects the cells and ants of all workers into one snapshot.
+   * 
+   * @return the reassembled board
+   * @throws IOException if the communication with a worker fails
+   */
+  public ColonySnapshot snapshot() throws IOException {
+    final byte[] cells = new byte[width * height];
+    final List<Ant> ants = new ArrayList<>();
+
+    for (DataOutputStream out : outputs) {
+      out.writeByte(ShardWorker.SNAPSHOT);
+      out.flush();
+    }
+    for (int shard = 0; shard < inputs.size(); shard++) {
+      final DataInputStream in = inputs.get(shard);
+      final int first = firstColumns[shard];
+      final int stripWidth = firstColumns[shard + 1] - first;
+      for (int y = 0; y < height; y++) {
+        in.readFully(cells, y * width + first, stripWidth);
+      }
+      for (ShardWorker.ShardAnt ant : ShardWorker.ShardAnt.readAll(in)) {
+        ants.add(Ant.create(ant.x, ant.y, ant.orientation, ant.state));
+      }
+    }
+    return new ColonySnapshot(width, height, cells, ants, stepCount);
+  }
+
+  /**
+   * Stops all worker processes.
+   */
+  @Override
+  public void close() {
+    for (DataOutputStream out : outputs) {
+      try {
+        out.writeByte(ShardWorker.QUIT);
+        out.flush();
+      } catch (IOException e) {
+        // the worker is destroyed below
+      }
+    }
+    for (Socket socket : sockets) {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // nothing left to clean up
+      }
+    }
+    for (Process process : processes) {
+      process.destroy();
+    }
+  }
+
+}
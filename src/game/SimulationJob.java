@@ -0,0 +1,134 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes a simulation to be run by a {@code Simulator} i.e. the board, the starting position of
+ * the ant, the maximum number of steps and optional conditions to stop earlier.
+ */
+public class SimulationJob {
+
+  /**
+   * The width of the simulated board.
+   */
+  private final int width;
+
+  /**
+   * The height of the simulated board.
+   */
+  private final int height;
+
+  /**
+   * The state configuration e.g. "RL".
+   */
+  private final String rule;
+
+  /**
+   * The x-Coordinate the ant starts at.
+   */
+  private final int antX;
+
+  /**
+   * The y-Coordinate the ant starts at.
+   */
+  private final int antY;
+
+  /**
+   * The maximum number of steps to be computed.
+   */
+  private final int stepBudget;
+
+  /**
+   * The conditions to stop before the step budget is used up.
+   */
+  private final List<StopCondition> stopConditions;
+
+  /**
+   * The maximum estimated memory usage of the board in bytes.
+   */
+  private long memoryLimit;
+
+  /**
+   * Creates a new {@code SimulationJob}.
+   */
+  private SimulationJob(int width, int height, String rule, int antX, int antY, int stepBudget) {
+    this.width = width;
+    this.height = height;
+    this.rule = rule;
+    this.antX = antX;
+    this.antY = antY;
+    this.stepBudget = stepBudget;
+    this.stopConditions = new ArrayList<>();
+    this.memoryLimit = Long.MAX_VALUE;
+  }
+
+  /**
+   * Creates a new {@code SimulationJob} without stop conditions and memory limit.
+   * 
+   * @param width positive width of the board
+   * @param height positive height of the board
+   * @param rule the state configuration e.g. "RL"
+   * @param antX x-Coordinate the ant starts at
+   * @param antY y-Coordinate the ant starts at
+   * @param stepBudget non-negative maximum number of steps to be computed
+   * @return the newly created {@code SimulationJob}
+   */
+  public static SimulationJob create(int width, int height, String rule, int antX, int antY,
+      int stepBudget) {
+    if (width <= 0 || height <= 0 || stepBudget < 0) {
+      throw new IllegalArgumentException("Invalid board size or step budget");
+    } else if (antX < 0 || antY < 0 || antX >= width || antY >= height) {
+      throw new IllegalArgumentException("Ant out of range");
+    }
+    return new SimulationJob(width, height, rule, antX, antY, stepBudget);
+  }
+
+  /**
+   * Adds a condition to stop the simulation before its step budget is used up. Conditions are
+   * checked after every step.
+   * 
+   * @param condition the condition to be added
+   * @return this {@code SimulationJob}
+   */
+  public SimulationJob stopWhen(StopCondition condition) {
+    stopConditions.add(condition);
+    return this;
+  }
+
+  /**
+   * Limits the estimated memory usage of the board. The simulation stops once the limit is
+   * exceeded.
+   * 
+   * @param bytes the maximum number of bytes
+   * @return this {@code SimulationJob}
+   */
+  public SimulationJob limitMemory(long bytes) {
+    memoryLimit = bytes;
+    return this;
+  }
+
+  /** Creates the board described by this job with the ant at its starting position. */
+  Board createBoard() {
+    Board board = Board.create(width, height, rule);
+    board.setAnt(Ant.create(antX, antY), antX, antY);
+    return board;
+  }
+
+  /** Returns the maximum number of steps. */
+  int getStepBudget() {
+    return stepBudget;
+  }
+
+  /** Returns all stop conditions. */
+  List<StopCondition> getStopConditions() {
+    return Collections.unmodifiableList(stopConditions);
+  }
+
+  /** Returns the maximum estimated memory usage of the board in bytes. */
+  long getMemoryLimit() {
+    return memoryLimit;
+  }
+
+}
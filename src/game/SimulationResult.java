@@ -0,0 +1,83 @@
+package game;
+
+/**
+ * The result of a finished {@code SimulationJob}.
+ */
+public class SimulationResult {
+
+  /**
+   * The simulated board in its final state.
+   */
+  private final Grid grid;
+
+  /**
+   * The reason the simulation ended.
+   */
+  private final StopReason reason;
+
+  /**
+   * The largest estimated memory usage of the board in bytes.
+   */
+  private final long peakMemoryUsage;
+
+  /**
+   * The time spent computing the simulation in nanoseconds.
+   */
+  private final long computationTime;
+
+  /**
+   * Creates a new {@code SimulationResult}.
+   */
+  SimulationResult(Grid grid, StopReason reason, long peakMemoryUsage, long computationTime) {
+    this.grid = grid;
+    this.reason = reason;
+    this.peakMemoryUsage = peakMemoryUsage;
+    this.computationTime = computationTime;
+  }
+
+  /**
+   * Returns the simulated board in its final state.
+   */
+  public Grid getGrid() {
+    return grid;
+  }
+
+  /**
+   * Returns the reason the simulation ended.
+   */
+  public StopReason getReason() {
+    return reason;
+  }
+
+  /**
+   * Returns the number of computed steps.
+   */
+  public int getStepCount() {
+    return grid.getStepCount();
+  }
+
+  /**
+   * Returns the number of cells in the given state at the end of the simulation.
+   * 
+   * @param state the state
+   */
+  public int getPopulation(int state) {
+    return grid.getPopulation(state);
+  }
+
+  /**
+   * Returns the largest estimated memory usage of the board in bytes.
+   */
+  public long getPeakMemoryUsage() {
+    return peakMemoryUsage;
+  }
+
+  /**
+   * Returns the time spent computing the simulation (without waiting for a thread) in
+   * nanoseconds.
+   */
+  public long getComputationTime() {
+    return computationTime;
+  }
+
+}
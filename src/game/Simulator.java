@@ -0,0 +1,190 @@
+package game;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs many independent {@code SimulationJob}s in parallel on a thread pool. The jobs are computed
+ * in slices of roughly {@code TIME_SLICE} nanoseconds, after each slice a job is queued again
+ * behind all other waiting jobs, thus long jobs do not starve short ones. All threads share one
+ * FIFO queue: a work-stealing pool would put a re-queued slice into the local queue of its thread,
+ * which runs it again before any newly submitted job.
+ */
+public class Simulator implements AutoCloseable {
+
+  // target duration of one slice in nanoseconds
+  private static final long TIME_SLICE = 1_000_000;
+
+  // number of steps of the first slice of every job, later slices adapt to TIME_SLICE
+  private static final int INITIAL_QUANTUM = 1024;
+
+  /**
+   * The pool computing the slices.
+   */
+  private final ExecutorService pool;
+
+  /**
+   * Creates a new {@code Simulator}.
+   * 
+   * @param parallelism the number of threads
+   */
+  private Simulator(int parallelism) {
+    // a fixed thread pool takes all tasks from one shared FIFO queue
+    pool = Executors.newFixedThreadPool(parallelism, task -> {
+      Thread thread = new Thread(task, "simulator");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Creates a new {@code Simulator}.
+   * 
+   * @param parallelism the positive number of threads computing the jobs
+   * @return the newly created {@code Simulator}
+   */
+  public static Simulator create(int parallelism) {
+    return new Simulator(parallelism);
+  }
+
+  /**
+   * Creates a new {@code Simulator} using one thread per available processor.
+   * 
+   * @return the newly created {@code Simulator}
+   */
+  public static Simulator create() {
+    return new Simulator(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Submits a job. Cancelling the returned future stops the job after its current slice.
+   * 
+   * @param job the job to be computed
+   * @return a future completed with the result once the job has ended
+   */
+  public CompletableFuture<SimulationResult> submit(SimulationJob job) {
+    final CompletableFuture<SimulationResult> result = new CompletableFuture<>();
+    pool.execute(new Run(job, result));
+    return result;
+  }
+
+  /**
+   * Stops all running jobs and the threads of this {@code Simulator}.
+   */
+  @Override
+  public void close() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * The state of a submitted job. Every execution computes one slice and re-queues the job unless
+   * it has ended.
+   */
+  private final class Run implements Runnable {
+
+    private final SimulationJob job;
+
+    private final CompletableFuture<SimulationResult> result;
+
+    private final List<StopCondition> stopConditions;
+
+    /**
+     * The board, created by the first slice.
+     */
+    private Board board;
+
+    /**
+     * The number of steps computed by the next slice.
+     */
+    private int quantum;
+
+    private long peakMemoryUsage;
+
+    private long computationTime;
+
+    Run(SimulationJob job, CompletableFuture<SimulationResult> result) {
+      this.job = job;
+      this.result = result;
+      this.stopConditions = job.getStopConditions();
+      this.quantum = INITIAL_QUANTUM;
+    }
+
+    @Override
+    public void run() {
+      if (result.isDone()) {
+        // cancelled
+        return;
+      }
+
+      try {
+        final long start = System.nanoTime();
+        final StopReason reason = computeSlice();
+        final long duration = System.nanoTime() - start;
+        computationTime += duration;
+
+        if (reason != null) {
+          result.complete(new SimulationResult(board, reason, peakMemoryUsage, computationTime));
+          return;
+        }
+
+        // scale the next slice towards TIME_SLICE, but at most by a factor of two per slice
+        final long scaled = quantum * TIME_SLICE / Math.max(duration, 1);
+        quantum = (int) Math.max(1, Math.min(Math.min(scaled, 2L * quantum), Integer.MAX_VALUE));
+        pool.execute(this);
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    }
+
+    /** Computes the next slice and returns the reason to stop or {@code null} to continue. */
+    private StopReason computeSlice() {
+      if (board == null) {
+        board = job.createBoard();
+        if (isStopConditionReached()) {
+          return StopReason.STOP_CONDITION;
+        }
+      }
+
+      final int steps = Math.min(quantum, job.getStepBudget() - board.getStepCount());
+      if (stopConditions.isEmpty()) {
+        board.performStep(steps);
+      } else {
+        for (int i = 0; i < steps; i++) {
+          board.performStep();
+          if (isStopConditionReached()) {
+            updateMemoryUsage();
+            return StopReason.STOP_CONDITION;
+          }
+        }
+      }
+
+      if (updateMemoryUsage() > job.getMemoryLimit()) {
+        return StopReason.MEMORY_LIMIT;
+      } else if (board.getStepCount() >= job.getStepBudget()) {
+        return StopReason.STEP_BUDGET;
+      }
+      return null;
+    }
+
+    /** Returns whether any stop condition is reached. */
+    private boolean isStopConditionReached() {
+      for (StopCondition condition : stopConditions) {
+        if (condition.isReached(board)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /** Updates and returns the current memory usage of the board. */
+    private long updateMemoryUsage() {
+      final long usage = board.estimateMemoryUsage();
+      peakMemoryUsage = Math.max(peakMemoryUsage, usage);
+      return usage;
+    }
+
+  }
+
+}
@@ -0,0 +1,321 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A persistent cache of simulated boards in a directory. A query consists of the size and the rule
+ * of an empty board, the starting position of a single ant and the number of steps. The snapshot
+ * answering a query is stored in a file named after the SHA-256 digest of the query, thus equal
+ * queries share one file. A query without a snapshot continues from the snapshot of the same board
+ * with the largest smaller number of steps, so only the missing steps are simulated.
+ *
+ * <p>The total size of the snapshots is bounded, the least recently used snapshots are deleted
+ * first. The use of a snapshot is recorded as the modification time of its file, thus the order
+ * survives reopening the cache.
+ *
+ * <p>File format: the compressed (deflate) stream of the magic number 0x414E5443 ("ANTC"), the x-
+ * and y-Coordinate the ant started at (each as int) and the board, see
+ * {@code Board.writeSnapshot}. Files are written to a temporary file first and renamed atomically.
+ */
+public class SnapshotCache {
+
+  // identifies cached snapshots ("ANTC")
+  private static final int MAGIC = 0x414E5443;
+
+  // the extension of all snapshot files
+  private static final String EXTENSION = ".snapshot";
+
+  /**
+   * The directory containing the snapshots.
+   */
+  private final Path directory;
+
+  /**
+   * The maximum total size of all snapshots in bytes.
+   */
+  private final long capacity;
+
+  /**
+   * All snapshots by their file name, least recently used first.
+   */
+  private final LinkedHashMap<String, Snapshot> snapshots;
+
+  /**
+   * The file names of all snapshots by their board (everything of the query except the number of
+   * steps) and their number of steps.
+   */
+  private final Map<String, TreeMap<Integer, String>> boards;
+
+  /**
+   * The total size of all snapshots in bytes.
+   */
+  private long size;
+
+  /**
+   * Creates a new {@code SnapshotCache}.
+   */
+  private SnapshotCache(Path directory, long capacity) {
+    this.directory = directory;
+    this.capacity = capacity;
+    this.snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    this.boards = new HashMap<>();
+  }
+
+  /**
+   * Opens the cache in a directory, which is created if necessary. Snapshots already in the
+   * directory are reused, unreadable ones are deleted.
+   *
+   * @param directory the directory containing the snapshots
+   * @param capacity the maximum total size of all snapshots in bytes
+   * @return the opened {@code SnapshotCache}
+   * @throws IOException if the directory cannot be read
+   */
+  public static SnapshotCache open(Path directory, long capacity) throws IOException {
+    Files.createDirectories(directory);
+    final SnapshotCache cache = new SnapshotCache(directory, capacity);
+
+    final List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+      stream.forEach(files::add);
+    }
+    // insert the least recently used snapshots first
+    final Map<Path, FileTime> lastUse = new HashMap<>();
+    for (Path file : files) {
+      lastUse.put(file, Files.getLastModifiedTime(file));
+    }
+    files.sort(Comparator.comparing(lastUse::get));
+
+    for (Path file : files) {
+      try (DataInputStream in = openSnapshot(file)) {
+        final int antX = in.readInt();
+        final int antY = in.readInt();
+        final String rule = in.readUTF();
+        final int width = in.readInt();
+        final int height = in.readInt();
+        final int steps = in.readInt();
+        if (!Rule.isValid(rule) || width <= 0 || height <= 0 || steps < 0 || antX < 0
+            || antY < 0 || antX >= width || antY >= height) {
+          throw new IOException("Invalid snapshot: " + file);
+        }
+        cache.add(file.getFileName().toString(), query(width, height, rule, antX, antY),
+            steps, Files.size(file));
+      } catch (IOException e) {
+        Files.deleteIfExists(file);
+      }
+    }
+    cache.evict();
+    return cache;
+  }
+
+  /**
+   * Returns the board of the given size and rule with a single ant after the given number of
+   * steps. The board is loaded from the cache if possible, otherwise it is simulated from the
+   * nearest earlier snapshot or from the empty board and added to the cache. The returned board can
+   * only be reset to the step it was loaded or created at.
+   *
+   * @param width positive width of the board
+   * @param height positive height of the board
+   * @param rule the state configuration, see {@code Rule}
+   * @param antX x-Coordinate the ant starts at
+   * @param antY y-Coordinate the ant starts at
+   * @param steps non-negative number of steps
+   * @return the board after the given number of steps
+   * @throws IOException if the snapshot cannot be written
+   */
+  public synchronized Grid get(int width, int height, String rule, int antX, int antY, int steps)
+      throws IOException {
+    if (width <= 0 || height <= 0 || steps < 0) {
+      throw new IllegalArgumentException("Invalid board size or number of steps");
+    } else if (antX < 0 || antY < 0 || antX >= width || antY >= height) {
+      throw new IllegalArgumentException("Ant out of range");
+    }
+    final String query = query(width, height, rule, antX, antY);
+
+    Board board = null;
+    final TreeMap<Integer, String> cached = boards.get(query);
+    while (board == null && cached != null && cached.floorKey(steps) != null) {
+      final String name = cached.floorEntry(steps).getValue();
+      try {
+        board = load(name);
+      } catch (IOException e) {
+        // the file is damaged or has been deleted
+        remove(name);
+      }
+    }
+    if (board == null) {
+      board = Board.create(width, height, rule);
+      board.setAnt(Ant.create(antX, antY), antX, antY);
+    }
+
+    if (board.getStepCount() < steps) {
+      board.performStep(steps - board.getStepCount());
+      store(board, query, antX, antY);
+    }
+    return board;
+  }
+
+  /**
+   * Returns the total size of all snapshots in bytes.
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the number of snapshots.
+   */
+  public synchronized int getNumberOfSnapshots() {
+    return snapshots.size();
+  }
+
+  /** Loads a snapshot and marks it as most recently used. */
+  private Board load(String name) throws IOException {
+    final Path file = directory.resolve(name);
+    final Board board;
+    try (DataInputStream in = openSnapshot(file)) {
+      in.readInt();
+      in.readInt();
+      board = Board.readSnapshot(in);
+    }
+    snapshots.get(name);
+    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    return board;
+  }
+
+  /** Writes the snapshot of a board and deletes the least recently used snapshots if necessary. */
+  private void store(Board board, String query, int antX, int antY) throws IOException {
+    final String name = digest(query + " " + board.getStepCount()) + EXTENSION;
+    final Path file = directory.resolve(name);
+    final Path temporary = Files.createTempFile(directory, "snapshot", ".tmp");
+    try {
+      try (OutputStream stream = Files.newOutputStream(temporary);
+          DataOutputStream out = new DataOutputStream(
+              new DeflaterOutputStream(new BufferedOutputStream(stream)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(antX);
+        out.writeInt(antY);
+        board.writeSnapshot(out);
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+
+    remove(name);
+    add(name, query, board.getStepCount(), Files.size(file));
+    evict();
+  }
+
+  /** Adds a snapshot to the index as most recently used. */
+  private void add(String name, String query, int steps, long bytes) {
+    snapshots.put(name, new Snapshot(query, steps, bytes));
+    boards.computeIfAbsent(query, key -> new TreeMap<>()).put(steps, name);
+    size += bytes;
+  }
+
+  /** Removes a snapshot from the index. */
+  private void remove(String name) {
+    final Snapshot snapshot = snapshots.remove(name);
+    if (snapshot == null) {
+      return;
+    }
+    final TreeMap<Integer, String> cached = boards.get(snapshot.query);
+    cached.remove(snapshot.steps);
+    if (cached.isEmpty()) {
+      boards.remove(snapshot.query);
+    }
+    size -= snapshot.bytes;
+  }
+
+  /** Deletes the least recently used snapshots until the total size fits into the capacity. */
+  private void evict() throws IOException {
+    final Iterator<String> names = new ArrayList<>(snapshots.keySet()).iterator();
+    while (size > capacity && names.hasNext()) {
+      final String name = names.next();
+      remove(name);
+      Files.deleteIfExists(directory.resolve(name));
+    }
+  }
+
+  /** Opens a snapshot file and checks its magic number. */
+  private static DataInputStream openSnapshot(Path file) throws IOException {
+    final InputStream stream = Files.newInputStream(file);
+    final DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new InflaterInputStream(stream)));
+    try {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a snapshot: " + file);
+      }
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+    return in;
+  }
+
+  /** Returns the part of a query identifying the board. */
+  private static String query(int width, int height, String rule, int antX, int antY) {
+    return width + "x" + height + " " + rule + " " + antX + "," + antY;
+  }
+
+  /** Returns the SHA-256 digest of a text as hexadecimal number. */
+  private static String digest(String text) {
+    try {
+      final byte[] hash =
+          MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+      final StringBuilder hex = new StringBuilder();
+      for (byte b : hash) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform supports SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * An entry of the index.
+   */
+  private static final class Snapshot {
+
+    private final String query;
+
+    private final int steps;
+
+    private final long bytes;
+
+    Snapshot(String query, int steps, long bytes) {
+      this.query = query;
+      this.steps = steps;
+      this.bytes = bytes;
+    }
+
+  }
+
+}
@@ -0,0 +1,430 @@
+package game;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Stores the states of all cells of a {@code Board} in square chunks of byte arrays. Chunks whose
+ * cells are all in state 0 need not be allocated, thus sparse boards only pay for the region the
+ * ant has actually changed. All bulk operations work on whole chunks using the array operations of
+ * the JDK ({@code Arrays.fill}, {@code Arrays.equals}, {@code Arrays.mismatch} and
+ * {@code System.arraycopy}), which are compiled to vector instructions by the JIT.
+ */
+final class StateGrid {
+
+  // the chunks are CHUNK_SIZE x CHUNK_SIZE cells large, stored row by row
+  static final int CHUNK_BITS = 6;
+  static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+  // the largest number of states a cell can take
+  static final int MAXIMUM_STATES = 256;
+
+  // a chunk containing only cells in state 0
+  private static final byte[] EMPTY_CHUNK = new byte[CHUNK_CELLS];
+
+  // one chunk row per state containing only cells in this state
+  private static final byte[][] UNIFORM_ROWS = new byte[MAXIMUM_STATES][CHUNK_SIZE];
+
+  static {
+    for (int state = 0; state < MAXIMUM_STATES; state++) {
+      Arrays.fill(UNIFORM_ROWS[state], (byte) state);
+    }
+  }
+
+  /**
+   * The number of columns.
+   */
+  private final int width;
+
+  /**
+   * The number of rows.
+   */
+  private final int height;
+
+  /**
+   * The number of chunks in one row of chunks.
+   */
+  private final int chunkColumns;
+
+  /**
+   * The number of rows of chunks.
+   */
+  private final int chunkRows;
+
+  /**
+   * The chunks, {@code null} for chunks containing only cells in state 0. Cells of the last chunk
+   * row and column that are outside of the grid always stay in state 0.
+   */
+  private final byte[][] chunks;
+
+  /**
+   * Saves for each chunk whether it may be shared with a fork, shared chunks are copied before
+   * their first change.
+   */
+  private final boolean[] shared;
+
+  /**
+   * Creates a new {@code StateGrid} with all cells in state 0.
+   * 
+   * @param width non-negative number of columns
+   * @param height non-negative number of rows
+   */
+  StateGrid(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.chunkColumns = (width + CHUNK_MASK) >> CHUNK_BITS;
+    this.chunkRows = (height + CHUNK_MASK) >> CHUNK_BITS;
+    this.chunks = new byte[chunkColumns * chunkRows][];
+    this.shared = new boolean[chunks.length];
+  }
+
+  /**
+   * Returns a copy of this {@code StateGrid} sharing all chunks with it. Both grids copy a shared
+   * chunk before changing it, thus a fork costs one reference per chunk and every change of either
+   * grid copies at most the chunks it touches.
+   */
+  StateGrid fork() {
+    final StateGrid fork = new StateGrid(width, height);
+    System.arraycopy(chunks, 0, fork.chunks, 0, chunks.length);
+    for (int index = 0; index < chunks.length; index++) {
+      shared[index] = chunks[index] != null;
+    }
+    System.arraycopy(shared, 0, fork.shared, 0, shared.length);
+    return fork;
+  }
+
+  /** Returns the number of columns. */
+  int getWidth() {
+    return width;
+  }
+
+  /** Returns the number of rows. */
+  int getHeight() {
+    return height;
+  }
+
+  /** Returns the index of the chunk containing the given cell. */
+  private int chunkIndex(int x, int y) {
+    return (y >> CHUNK_BITS) * chunkColumns + (x >> CHUNK_BITS);
+  }
+
+  /** Returns the index of the given cell inside of its chunk. */
+  private static int cellIndex(int x, int y) {
+    return ((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK);
+  }
+
+  /** Returns the state of the given cell. */
+  int get(int x, int y) {
+    final byte[] chunk = chunks[chunkIndex(x, y)];
+    return chunk == null ? 0 : chunk[cellIndex(x, y)] & 0xFF;
+  }
+
+  /** Sets the state of the given cell. */
+  void set(int x, int y, int state) {
+    final int index = chunkIndex(x, y);
+    byte[] chunk = chunks[index];
+    if (chunk == null) {
+      if (state == 0) {
+        return;
+      }
+      chunk = new byte[CHUNK_CELLS];
+      chunks[index] = chunk;
+    } else if (shared[index]) {
+      if ((chunk[cellIndex(x, y)] & 0xFF) == state) {
+        return;
+      }
+      // copy on write
+      chunk = chunk.clone();
+      chunks[index] = chunk;
+      shared[index] = false;
+    }
+    chunk[cellIndex(x, y)] = (byte) state;
+  }
+
+  /** Sets all cells to state 0. */
+  void clear() {
+    Arrays.fill(chunks, null);
+    Arrays.fill(shared, false);
+  }
+
+  /**
+   * Counts the cells in each state.
+   * 
+   * @param population the array the counts are written to, indexed by the state
+   */
+  void countStates(int[] population) {
+    Arrays.fill(population, 0);
+    // cells outside of the grid are in state 0, thus they are subtracted at the end
+    long emptyCells = (long) chunks.length * CHUNK_CELLS;
+    for (final byte[] chunk : chunks) {
+      if (chunk == null) {
+        continue;
+      }
+      emptyCells -= CHUNK_CELLS;
+      // four interleaved histograms so consecutive increments do not depend on each other
+      final int[] counts = new int[4 * MAXIMUM_STATES];
+      for (int i = 0; i < CHUNK_CELLS; i += 4) {
+        counts[chunk[i] & 0xFF]++;
+        counts[MAXIMUM_STATES + (chunk[i + 1] & 0xFF)]++;
+        counts[2 * MAXIMUM_STATES + (chunk[i + 2] & 0xFF)]++;
+        counts[3 * MAXIMUM_STATES + (chunk[i + 3] & 0xFF)]++;
+      }
+      for (int state = 0; state < population.length; state++) {
+        population[state] += counts[state] + counts[MAXIMUM_STATES + state]
+            + counts[2 * MAXIMUM_STATES + state] + counts[3 * MAXIMUM_STATES + state];
+      }
+    }
+    final long cellsOutsideOfGrid = (long) chunks.length * CHUNK_CELLS - (long) width * height;
+    population[0] += (int) (emptyCells - cellsOutsideOfGrid);
+  }
+
+  /** Returns the number of columns of chunks. */
+  int getChunkColumns() {
+    return chunkColumns;
+  }
+
+  /** Returns the number of rows of chunks. */
+  int getChunkRows() {
+    return chunkRows;
+  }
+
+  /**
+   * Counts the cells of one chunk in each state. Cells outside of the grid are not counted.
+   * 
+   * @param chunkX the column of the chunk
+   * @param chunkY the row of the chunk
+   * @param population the array the counts are written to, indexed by the state
+   */
+  void countStates(int chunkX, int chunkY, int[] population) {
+    Arrays.fill(population, 0);
+    final int columns = Math.min(CHUNK_SIZE, width - (chunkX << CHUNK_BITS));
+    final int rows = Math.min(CHUNK_SIZE, height - (chunkY << CHUNK_BITS));
+    final byte[] chunk = chunks[chunkY * chunkColumns + chunkX];
+    if (chunk == null) {
+      population[0] = columns * rows;
+      return;
+    }
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < columns; x++) {
+        population[chunk[(y << CHUNK_BITS) | x] & 0xFF]++;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of cells in the given state in row y from fromX (inclusive) to toX
+   * (exclusive).
+   */
+  int countStates(int state, int y, int fromX, int toX) {
+    int count = 0;
+    int x = fromX;
+    while (x < toX) {
+      final int segment = Math.min(CHUNK_SIZE - (x & CHUNK_MASK), toX - x);
+      final byte[] chunk = chunks[chunkIndex(x, y)];
+      if (chunk == null) {
+        count += state == 0 ? segment : 0;
+      } else {
+        final int from = cellIndex(x, y);
+        for (int i = from; i < from + segment; i++) {
+          if ((chunk[i] & 0xFF) == state) {
+            count++;
+          }
+        }
+      }
+      x += segment;
+    }
+    return count;
+  }
+
+  /**
+   * Returns whether all cells of this and another {@code StateGrid} of the same size are in the
+   * same state.
+   */
+  boolean contentEquals(StateGrid other) {
+    if (width != other.width || height != other.height) {
+      return false;
+    }
+    for (int i = 0; i < chunks.length; i++) {
+      if (chunks[i] != other.chunks[i] && !Arrays.equals(orEmpty(chunks[i]),
+          orEmpty(other.chunks[i]))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of cells that are in a different state in this and another
+   * {@code StateGrid} of the same size.
+   */
+  long countDifferences(StateGrid other) {
+    if (width != other.width || height != other.height) {
+      throw new IllegalArgumentException("Different grid sizes");
+    }
+    long differences = 0;
+    for (int i = 0; i < chunks.length; i++) {
+      if (chunks[i] == other.chunks[i]) {
+        continue;
+      }
+      final byte[] a = orEmpty(chunks[i]);
+      final byte[] b = orEmpty(other.chunks[i]);
+      // jump from one difference to the next
+      int offset = Arrays.mismatch(a, b);
+      while (offset >= 0) {
+        differences++;
+        offset++;
+        final int next = Arrays.mismatch(a, offset, CHUNK_CELLS, b, offset, CHUNK_CELLS);
+        offset = next < 0 ? -1 : offset + next;
+      }
+    }
+    return differences;
+  }
+
+  /**
+   * Returns the number of consecutive cells in row y, starting at x, that are in the same state as
+   * the cell (x, y).
+   */
+  int runLength(int x, int y) {
+    final int state = get(x, y);
+    final byte[] uniform = UNIFORM_ROWS[state];
+    int end = x;
+    while (end < width) {
+      final int segment = Math.min(CHUNK_SIZE - (end & CHUNK_MASK), width - end);
+      final byte[] chunk = chunks[chunkIndex(end, y)];
+      final int mismatch;
+      if (chunk == null) {
+        mismatch = state == 0 ? -1 : 0;
+      } else {
+        final int from = cellIndex(end, y);
+        mismatch = Arrays.mismatch(chunk, from, from + segment, uniform, 0, segment);
+      }
+      if (mismatch >= 0) {
+        return end + mismatch - x;
+      }
+      end += segment;
+    }
+    return end - x;
+  }
+
+  /**
+   * Returns a copy of this {@code StateGrid} with a different size. Cells are moved by the given
+   * shift, cells that are out of range afterwards are dropped, new cells are in state 0.
+   * 
+   * @param columns the new number of columns
+   * @param rows the new number of rows
+   * @param xAxisShift the value added to the x-Coordinate of each cell
+   * @param yAxisShift the value added to the y-Coordinate of each cell
+   */
+  StateGrid translate(int columns, int rows, int xAxisShift, int yAxisShift) {
+    final StateGrid translated = new StateGrid(columns, rows);
+    final int fromX = Math.max(0, -xAxisShift);
+    final int toX = Math.min(width, columns - xAxisShift);
+
+    for (int y = Math.max(0, -yAxisShift); y < Math.min(height, rows - yAxisShift); y++) {
+      // copy the row in segments that neither cross a source nor a target chunk
+      int x = fromX;
+      while (x < toX) {
+        final int targetX = x + xAxisShift;
+        final int segment = Math.min(Math.min(CHUNK_SIZE - (x & CHUNK_MASK),
+            CHUNK_SIZE - (targetX & CHUNK_MASK)), toX - x);
+        final byte[] source = chunks[chunkIndex(x, y)];
+        if (source != null) {
+          final int from = cellIndex(x, y);
+          if (Arrays.mismatch(source, from, from + segment, EMPTY_CHUNK, 0, segment) >= 0) {
+            final int targetY = y + yAxisShift;
+            final int index = translated.chunkIndex(targetX, targetY);
+            if (translated.chunks[index] == null) {
+              translated.chunks[index] = new byte[CHUNK_CELLS];
+            }
+            System.arraycopy(source, from, translated.chunks[index], cellIndex(targetX, targetY),
+                segment);
+          }
+        }
+        x += segment;
+      }
+    }
+    return translated;
+  }
+
+  /**
+   * Returns the XOR of the Zobrist keys of all cells that are not in state 0.
+   */
+  long hashCells() {
+    long hash = 0;
+    for (int index = 0; index < chunks.length; index++) {
+      final byte[] chunk = chunks[index];
+      if (chunk == null) {
+        continue;
+      }
+      final int chunkX = (index % chunkColumns) << CHUNK_BITS;
+      final int chunkY = (index / chunkColumns) << CHUNK_BITS;
+      // skip from one cell not in state 0 to the next
+      int cell = Arrays.mismatch(chunk, EMPTY_CHUNK);
+      while (cell >= 0) {
+        hash ^= Zobrist.cellKey(chunkX + (cell & CHUNK_MASK), chunkY + (cell >> CHUNK_BITS),
+            chunk[cell] & 0xFF);
+        cell++;
+        final int next = Arrays.mismatch(chunk, cell, CHUNK_CELLS, EMPTY_CHUNK, cell, CHUNK_CELLS);
+        cell = next < 0 ? -1 : cell + next;
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Writes all cells chunk by chunk, each chunk as a flag whether it is allocated followed by its
+   * cells if so.
+   * 
+   * @param out the output the cells are written to
+   * @throws IOException if writing fails
+   */
+  void write(DataOutput out) throws IOException {
+    for (final byte[] chunk : chunks) {
+      out.writeBoolean(chunk != null);
+      if (chunk != null) {
+        out.write(chunk);
+      }
+    }
+  }
+
+  /**
+   * Reads cells written by {@code write}.
+   * 
+   * @param in the input the cells are read from
+   * @param width non-negative number of columns of the written grid
+   * @param height non-negative number of rows of the written grid
+   * @return the newly created {@code StateGrid}
+   * @throws IOException if reading fails
+   */
+  static StateGrid read(DataInput in, int width, int height) throws IOException {
+    final StateGrid grid = new StateGrid(width, height);
+    for (int index = 0; index < grid.chunks.length; index++) {
+      if (in.readBoolean()) {
+        grid.chunks[index] = new byte[CHUNK_CELLS];
+        in.readFully(grid.chunks[index]);
+      }
+    }
+    return grid;
+  }
+
+  /** Returns the number of bytes allocated for the chunks, including chunks shared with forks. */
+  long getAllocatedBytes() {
+    long bytes = (long) chunks.length * (4 + 1);
+    for (final byte[] chunk : chunks) {
+      if (chunk != null) {
+        bytes += CHUNK_CELLS + 16;
+      }
+    }
+    return bytes;
+  }
+
+  /** Returns the given chunk or the empty chunk for {@code null}. */
+  private static byte[] orEmpty(byte[] chunk) {
+    return chunk == null ? EMPTY_CHUNK : chunk;
+  }
+
+}
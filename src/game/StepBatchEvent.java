@@ -0,0 +1,18 @@
+package game;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted for every batch of steps computed by {@code Board.performStep}.
+ */
+@Name("game.StepBatch")
+@Label("Step Batch")
+@Description("A batch of steps computed by the board")
+class StepBatchEvent extends BoardEvent {
+
+  @Label("Steps")
+  int steps;
+
+}
@@ -0,0 +1,22 @@
+package game;
+
+/**
+ * A step loop specialised for one rule. Kernels only compute the plain game i.e. they are not used
+ * while visits are tracked or a journal is written.
+ */
+interface StepKernel {
+
+  /**
+   * Computes the specified number of rounds.
+   * 
+   * @param grid the states of all cells
+   * @param ant the ant, updated to its new position, orientation and state
+   * @param population the number of cells in each state, updated for every changed cell
+   * @param antMoves the saved moves, the ant is added before every step
+   * @param cellsHash the Zobrist hash of all cells before the first step
+   * @param number the number of rounds to be computed
+   * @return the Zobrist hash of all cells after the last step
+   */
+  long computeSteps(StateGrid grid, Ant ant, int[] population, MoveHistory antMoves,
+      long cellsHash, int number);
+}
@@ -0,0 +1,127 @@
+package game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates and caches step loops specialised for a rule. For every classic rule the bytecode of
+ * {@code ClassicKernel} is copied, its placeholder constants are replaced by the rule's number of
+ * colors and turns, and the copy is defined as hidden class of its own. Rules without a kernel
+ * (turmites) are computed by the generic loop of the {@code Board}.
+ */
+final class StepKernels {
+
+  // tags of constant pool entries
+  private static final byte CONSTANT_INTEGER = 3;
+  private static final byte CONSTANT_LONG = 5;
+
+  /**
+   * The generated kernels by rule, empty for rules without a kernel.
+   */
+  private static final Map<String, Optional<StepKernel>> KERNELS = new ConcurrentHashMap<>();
+
+  /**
+   * The bytecode of {@code ClassicKernel}, {@code null} if it cannot be read.
+   */
+  private static final byte[] TEMPLATE = readTemplate();
+
+  private StepKernels() {
+    // generating objects of this class is not intended
+    throw new AssertionError();
+  }
+
+  /**
+   * Returns the kernel specialised for the given rule or {@code null} if the rule has to be
+   * computed by the generic loop.
+   * 
+   * @param rule the rule
+   */
+  static StepKernel forRule(Rule rule) {
+    return KERNELS.computeIfAbsent(rule.toString(), key -> generate(rule)).orElse(null);
+  }
+
+  /** Generates the kernel for a rule, returns an empty {@code Optional} if this is not possible. */
+  private static Optional<StepKernel> generate(Rule rule) {
+    if (TEMPLATE == null || !rule.isClassic() || rule.getColors() > Long.SIZE) {
+      return Optional.empty();
+    }
+
+    long turnMask = 0;
+    final int[] transitions = rule.getTransitions();
+    for (int color = 0; color < rule.getColors(); color++) {
+      if (Rule.turn(transitions[color]) == Rule.TURN_RIGHT) {
+        turnMask |= 1L << color;
+      }
+    }
+
+    final byte[] bytes = TEMPLATE.clone();
+    if (!patch(bytes, CONSTANT_INTEGER, ClassicKernel.COLORS, rule.getColors(), Integer.BYTES)
+        || !patch(bytes, CONSTANT_LONG, ClassicKernel.TURN_MASK, turnMask, Long.BYTES)) {
+      return Optional.empty();
+    }
+
+    try {
+      final MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+      return Optional.of((StepKernel) lookup.findConstructor(lookup.lookupClass(),
+          MethodType.methodType(void.class)).invoke());
+    } catch (Throwable e) {
+      // e.g. hidden classes are not permitted, the generic loop is used instead
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Replaces the value of a constant pool entry. The entry is found by its tag and placeholder
+   * value, which must occur exactly once.
+   */
+  private static boolean patch(byte[] bytes, byte tag, long placeholder, long value, int length) {
+    int position = -1;
+    for (int i = 0; i + length < bytes.length; i++) {
+      if (bytes[i] == tag && read(bytes, i + 1, length) == placeholder) {
+        if (position >= 0) {
+          return false;
+        }
+        position = i + 1;
+      }
+    }
+    if (position < 0) {
+      return false;
+    }
+
+    for (int i = length - 1; i >= 0; i--) {
+      bytes[position + i] = (byte) value;
+      value >>>= 8;
+    }
+    return true;
+  }
+
+  /** Reads a big-endian value of the given number of bytes. */
+  private static long read(byte[] bytes, int position, int length) {
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      value = value << 8 | (bytes[position + i] & 0xFF);
+    }
+    return length == Integer.BYTES ? (int) value : value;
+  }
+
+  /** Reads the bytecode of {@code ClassicKernel}. */
+  private static byte[] readTemplate() {
+    try (InputStream in = ClassicKernel.class.getResourceAsStream("ClassicKernel.class")) {
+      if (in == null) {
+        return null;
+      }
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      in.transferTo(out);
+      return out.toByteArray();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+}
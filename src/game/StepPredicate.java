@@ -0,0 +1,221 @@
+package game;
+
+/**
+ * A condition ending {@code Grid.performStepsUntil} at the exact round it first holds. Since the
+ * ant moves by one cell and changes at most one cell per round, every predicate knows a number of
+ * rounds during which it cannot hold, its horizon. The {@code Board} computes the rounds up to the
+ * horizon at full speed and only checks the predicate in between, close to the round it holds the
+ * rounds are computed one by one.
+ */
+public final class StepPredicate {
+
+  /**
+   * All supported kinds of predicates.
+   */
+  private enum Kind {
+    LEAVE_REGION, REACH_CELL, CHANGE_CELL, POPULATION, STEP
+  }
+
+  private final Kind kind;
+
+  /**
+   * The x-Coordinate of the cell or region, the state for {@code POPULATION} or the number of
+   * rounds for {@code STEP}.
+   */
+  private final int x;
+
+  /**
+   * The y-Coordinate of the cell or region, the number of cells for {@code POPULATION}.
+   */
+  private final int y;
+
+  private final int width;
+
+  private final int height;
+
+  /**
+   * Creates a new {@code StepPredicate}.
+   */
+  private StepPredicate(Kind kind, int x, int y, int width, int height) {
+    this.kind = kind;
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Holds after the first round that ends with the ant outside of a rectangle.
+   *
+   * @param x the x-Coordinate of the left column
+   * @param y the y-Coordinate of the top row
+   * @param width the positive number of columns
+   * @param height the positive number of rows
+   * @return the newly created {@code StepPredicate}
+   */
+  public static StepPredicate leavesRegion(int x, int y, int width, int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Empty region");
+    }
+    return new StepPredicate(Kind.LEAVE_REGION, x, y, width, height);
+  }
+
+  /**
+   * Holds after the first round that ends with the ant on a cell.
+   *
+   * @param x the x-Coordinate of the cell
+   * @param y the y-Coordinate of the cell
+   * @return the newly created {@code StepPredicate}
+   */
+  public static StepPredicate reachesCell(int x, int y) {
+    return new StepPredicate(Kind.REACH_CELL, x, y, 1, 1);
+  }
+
+  /**
+   * Holds after the first round that leaves a cell in another state than before the first round.
+   *
+   * @param x the x-Coordinate of the cell
+   * @param y the y-Coordinate of the cell
+   * @return the newly created {@code StepPredicate}
+   */
+  public static StepPredicate cellChanges(int x, int y) {
+    return new StepPredicate(Kind.CHANGE_CELL, x, y, 1, 1);
+  }
+
+  /**
+   * Holds after the first round that ends with the given number of cells in a state. Since the
+   * number changes by at most one per round, it holds when the number is crossed in either
+   * direction.
+   *
+   * @param state the state
+   * @param cells the non-negative number of cells
+   * @return the newly created {@code StepPredicate}
+   */
+  public static StepPredicate populationReaches(int state, int cells) {
+    if (state < 0 || cells < 0) {
+      throw new IllegalArgumentException("Negative state or number of cells");
+    }
+    return new StepPredicate(Kind.POPULATION, state, cells, 0, 0);
+  }
+
+  /**
+   * Holds after the given number of rounds in total.
+   *
+   * @param steps the number of rounds
+   * @return the newly created {@code StepPredicate}
+   */
+  public static StepPredicate stepReaches(int steps) {
+    return new StepPredicate(Kind.STEP, steps, 0, 0, 0);
+  }
+
+  /**
+   * Checks that the cell, region or state of this predicate exists on a board.
+   *
+   * @throws IndexOutOfBoundsException if the cell or region is out of range
+   * @throws IllegalArgumentException if the state does not exist
+   */
+  void check(int boardWidth, int boardHeight, int colors) {
+    if (kind == Kind.POPULATION) {
+      if (x >= colors) {
+        throw new IllegalArgumentException("Invalid state");
+      }
+    } else if (kind != Kind.STEP && (x < 0 || y < 0 || x > boardWidth - width
+        || y > boardHeight - height)) {
+      throw new IndexOutOfBoundsException("Region out of range");
+    }
+  }
+
+  /**
+   * Returns the state this predicate depends on before the first round.
+   *
+   * @param grid the cells
+   */
+  int capture(StateGrid grid) {
+    return kind == Kind.CHANGE_CELL ? grid.get(x, y) : 0;
+  }
+
+  /**
+   * Returns a positive number of rounds during which this predicate cannot hold, except after the
+   * last one.
+   *
+   * @param grid the cells
+   * @param ant the ant
+   * @param stepCount the number of rounds computed so far
+   * @param population the number of cells in each state
+   */
+  int horizon(StateGrid grid, Ant ant, int stepCount, int[] population) {
+    final long rounds;
+    switch (kind) {
+      case LEAVE_REGION:
+        rounds = Math.min(exit(ant.getX(), x, width, grid.getWidth()),
+            exit(ant.getY(), y, height, grid.getHeight()));
+        break;
+      case REACH_CELL:
+        rounds = distance(ant.getX(), x, grid.getWidth())
+            + distance(ant.getY(), y, grid.getHeight());
+        break;
+      case CHANGE_CELL:
+        // the ant has to get to the cell and leave it again
+        rounds = distance(ant.getX(), x, grid.getWidth())
+            + distance(ant.getY(), y, grid.getHeight()) + 1;
+        break;
+      case POPULATION:
+        rounds = Math.abs(population[x] - y);
+        break;
+      case STEP:
+        rounds = (long) x - stepCount;
+        break;
+      default:
+        throw new AssertionError();
+    }
+    return (int) Math.max(1, Math.min(rounds, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Returns whether this predicate holds.
+   *
+   * @param grid the cells
+   * @param ant the ant
+   * @param stepCount the number of rounds computed so far
+   * @param population the number of cells in each state
+   * @param captured the state returned by {@code capture} before the first round
+   */
+  boolean isReached(StateGrid grid, Ant ant, int stepCount, int[] population, int captured) {
+    switch (kind) {
+      case LEAVE_REGION:
+        return ant.getX() < x || ant.getY() < y || ant.getX() >= x + width
+            || ant.getY() >= y + height;
+      case REACH_CELL:
+        return ant.getX() == x && ant.getY() == y;
+      case CHANGE_CELL:
+        return grid.get(x, y) != captured;
+      case POPULATION:
+        return population[x] == y;
+      case STEP:
+        return stepCount >= x;
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  /** Returns the distance between two positions on a torus axis of the given length. */
+  private static long distance(int position, int target, int length) {
+    final int distance = Math.abs(position - target);
+    return Math.min(distance, length - distance);
+  }
+
+  /**
+   * Returns the number of rounds to leave an interval of a torus axis of the given length, one if
+   * the position is outside of it already.
+   */
+  private static long exit(int position, int from, int size, int length) {
+    if (size >= length) {
+      // the interval covers the whole axis
+      return Long.MAX_VALUE;
+    } else if (position < from || position >= from + size) {
+      return 1;
+    }
+    return Math.min(position - from, from + size - 1 - position) + 1;
+  }
+
+}
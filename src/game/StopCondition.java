@@ -0,0 +1,15 @@
+package game;
+
+/**
+ * A condition that ends a {@code SimulationJob} before its step budget is used up.
+ */
+@FunctionalInterface
+public interface StopCondition {
+
+  /**
+   * Returns whether the simulation should stop at the current state of the {@code Grid}.
+   * 
+   * @param grid the simulated {@code Grid}, must not be modified
+   */
+  boolean isReached(Grid grid);
+}
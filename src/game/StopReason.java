@@ -0,0 +1,8 @@
+package game;
+
+/**
+ * All possible reasons for a {@code SimulationJob} to end.
+ */
+public enum StopReason {
+  STEP_BUDGET, STOP_CONDITION, MEMORY_LIMIT;
+}
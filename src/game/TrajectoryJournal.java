@@ -0,0 +1,264 @@
+package game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Streams the moves of an ant into an append-only file. Every move is stored as the direction the
+ * ant moved in (2 bits), the moves are grouped into blocks of {@code BLOCK_STEPS} steps which are
+ * compressed separately. Each block starts with the number of its first step and the absolute
+ * position of the ant, thus a {@code TrajectoryReader} can seek to any step by decompressing a
+ * single block. Recording a move only packs its bits into the current block, full blocks are handed
+ * to a background thread through a bounded queue which compresses and writes them.
+ *
+ * <p>File format (big-endian): the magic number 0x414E544A ("ANTJ"), the width and the height of
+ * the board and {@code BLOCK_STEPS} (each as int), followed by the blocks. Each block consists of
+ * its first step (long), the x- and y-Coordinate of the ant before its first step (each as int),
+ * the number of moves (int), the length of the compressed moves (int) and the compressed moves.
+ */
+public class TrajectoryJournal implements AutoCloseable {
+
+  // identifies trajectory journals ("ANTJ")
+  static final int MAGIC = 0x414E544A;
+
+  // number of moves per block
+  static final int BLOCK_STEPS = 1 << 16;
+
+  // number of full blocks that may wait for the background thread
+  private static final int QUEUE_CAPACITY = 16;
+
+  // marks the end of the journal in the queue
+  private static final Block END = new Block(-1);
+
+  /**
+   * The full blocks waiting to be written.
+   */
+  private final BlockingQueue<Block> queue;
+
+  /**
+   * The thread compressing and writing the blocks.
+   */
+  private final Thread writer;
+
+  /**
+   * The block currently being filled.
+   */
+  private Block current;
+
+  /**
+   * The first error of the background thread.
+   */
+  private volatile IOException failure;
+
+  /**
+   * Saves whether the journal has already been closed.
+   */
+  private boolean closed;
+
+  /**
+   * Creates a new {@code TrajectoryJournal} and starts its background thread.
+   */
+  private TrajectoryJournal(DataOutputStream out, int width, int height, long firstStep, int antX,
+      int antY) {
+    this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    this.current = new Block(firstStep);
+    this.writer = new Thread(() -> write(out, width, height, antX, antY), "trajectory-journal");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Creates a new journal file, an existing file is overwritten.
+   * 
+   * @param file the file to be written
+   * @param width the width of the board
+   * @param height the height of the board
+   * @param firstStep the number of the first step to be recorded
+   * @param antX the x-Coordinate of the ant before the first step
+   * @param antY the y-Coordinate of the ant before the first step
+   * @return the newly created {@code TrajectoryJournal}
+   * @throws IOException if the file cannot be created
+   */
+  static TrajectoryJournal create(Path file, int width, int height, long firstStep, int antX,
+      int antY) throws IOException {
+    DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(width);
+      out.writeInt(height);
+      out.writeInt(BLOCK_STEPS);
+    } catch (IOException e) {
+      out.close();
+      throw e;
+    }
+    return new TrajectoryJournal(out, width, height, firstStep, antX, antY);
+  }
+
+  /**
+   * Records the next move of the ant.
+   * 
+   * @param direction the direction the ant moves in
+   */
+  void record(Direction direction) {
+    final Block block = current;
+    block.moves[block.count >> 2] |= (byte) (direction.ordinal() << ((block.count & 3) << 1));
+    block.count++;
+    if (block.count == BLOCK_STEPS) {
+      current = new Block(block.firstStep + BLOCK_STEPS);
+      enqueue(block);
+    }
+  }
+
+  /**
+   * Writes all recorded moves and closes the file.
+   * 
+   * @throws IOException if writing the file failed
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (current.count > 0) {
+      enqueue(current);
+    }
+    enqueue(END);
+
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while closing the journal", e);
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /** Hands a block to the background thread, waits while the queue is full. */
+  private void enqueue(Block block) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        queue.put(block);
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Compresses and writes all blocks until the end of the journal, run by the writer thread. */
+  private void write(DataOutputStream out, int width, int height, int antX, int antY) {
+    final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    byte[] compressed = new byte[BLOCK_STEPS / 4 + 64];
+    int x = antX;
+    int y = antY;
+
+    try (DataOutputStream stream = out) {
+      for (Block block = queue.take(); block != END; block = queue.take()) {
+        if (failure != null) {
+          // discard all remaining blocks
+          continue;
+        }
+        final int length = (block.count + 3) >> 2;
+        deflater.reset();
+        deflater.setInput(block.moves, 0, length);
+        deflater.finish();
+
+        stream.writeLong(block.firstStep);
+        stream.writeInt(x);
+        stream.writeInt(y);
+        stream.writeInt(block.count);
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+          if (compressedLength == compressed.length) {
+            compressed = Arrays.copyOf(compressed, 2 * compressed.length);
+          }
+          compressedLength += deflater.deflate(compressed, compressedLength,
+              compressed.length - compressedLength);
+        }
+        stream.writeInt(compressedLength);
+        stream.write(compressed, 0, compressedLength);
+
+        // the position of the ant before the first step of the next block
+        for (int i = 0; i < block.count; i++) {
+          final int direction = (block.moves[i >> 2] >> ((i & 3) << 1)) & 3;
+          final long position = move(x, y, direction, width, height);
+          x = (int) (position >> 32);
+          y = (int) position;
+        }
+      }
+    } catch (IOException e) {
+      failure = e;
+    } catch (InterruptedException e) {
+      failure = new IOException("Interrupted while writing the journal", e);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Returns the position (x in the upper, y in the lower 32 bits) of an ant after moving in the
+   * given direction. Calculates the torus exactly like the {@code Board}.
+   */
+  static long move(int x, int y, int direction, int width, int height) {
+    int newX = x;
+    int newY = y;
+    switch (direction) {
+      case 0: // NORTH
+        newY--;
+        break;
+      case 1: // EAST
+        newX++;
+        break;
+      case 2: // SOUTH
+        newY++;
+        break;
+      default: // WEST
+        newX--;
+        break;
+    }
+
+    if (newX < 0) {
+      newX += width;
+    } else if (newY < 0) {
+      newY += height;
+    } else {
+      newX %= width;
+      newY %= height;
+    }
+    return ((long) newX << 32) | (newY & 0xFFFFFFFFL);
+  }
+
+  /**
+   * A block of moves.
+   */
+  private static final class Block {
+
+    private final long firstStep;
+
+    private final byte[] moves;
+
+    private int count;
+
+    Block(long firstStep) {
+      this.firstStep = firstStep;
+      this.moves = firstStep < 0 ? null : new byte[BLOCK_STEPS / 4];
+    }
+
+  }
+
+}
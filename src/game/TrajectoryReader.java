@@ -0,0 +1,299 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a file written by a {@code TrajectoryJournal}. The reader can seek to any recorded step and
+ * replay the moves of the ant forward from there. On opening, the headers of all blocks are read
+ * into a sparse index of the first step, the file offset and the position of the ant per block.
+ */
+public class TrajectoryReader implements AutoCloseable {
+
+  // length of a block header in bytes
+  private static final int BLOCK_HEADER_LENGTH = 8 + 4 + 4 + 4 + 4;
+
+  /**
+   * The journal file.
+   */
+  private final RandomAccessFile file;
+
+  /**
+   * The width of the recorded board.
+   */
+  private final int width;
+
+  /**
+   * The height of the recorded board.
+   */
+  private final int height;
+
+  /**
+   * The first step of each block.
+   */
+  private final long[] blockSteps;
+
+  /**
+   * The file offset of each block.
+   */
+  private final long[] blockOffsets;
+
+  /**
+   * The position of the ant before the first step of each block (x in the upper, y in the lower 32
+   * bits).
+   */
+  private final long[] blockPositions;
+
+  /**
+   * The number of moves of each block.
+   */
+  private final int[] blockCounts;
+
+  /**
+   * The decompressed moves of the current block.
+   */
+  private final byte[] moves;
+
+  /**
+   * The index of the current block, -1 before the first seek.
+   */
+  private int block;
+
+  /**
+   * The index of the next move inside of the current block.
+   */
+  private int move;
+
+  /**
+   * The x-Coordinate of the ant before the next move.
+   */
+  private int xCoordinate;
+
+  /**
+   * The y-Coordinate of the ant before the next move.
+   */
+  private int yCoordinate;
+
+  /**
+   * Creates a new {@code TrajectoryReader} from a scanned index.
+   */
+  private TrajectoryReader(RandomAccessFile file, int width, int height, long[] blockSteps,
+      long[] blockOffsets, long[] blockPositions, int[] blockCounts) {
+    this.file = file;
+    this.width = width;
+    this.height = height;
+    this.blockSteps = blockSteps;
+    this.blockOffsets = blockOffsets;
+    this.blockPositions = blockPositions;
+    this.blockCounts = blockCounts;
+    this.moves = new byte[TrajectoryJournal.BLOCK_STEPS / 4];
+    this.block = -1;
+  }
+
+  /**
+   * Opens a journal file and positions the reader at its first recorded step. An incomplete last
+   * block (e.g. after a crash) is ignored.
+   * 
+   * @param path the journal file
+   * @return the newly created {@code TrajectoryReader}
+   * @throws IOException if the file cannot be read or is no journal
+   */
+  public static TrajectoryReader open(Path path) throws IOException {
+    int width;
+    int height;
+    int count = 0;
+    long[] steps = new long[16];
+    long[] offsets = new long[16];
+    long[] positions = new long[16];
+    int[] counts = new int[16];
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        Files.newInputStream(path)))) {
+      if (in.readInt() != TrajectoryJournal.MAGIC) {
+        throw new IOException("Not a trajectory journal: " + path);
+      }
+      width = in.readInt();
+      height = in.readInt();
+      if (in.readInt() != TrajectoryJournal.BLOCK_STEPS) {
+        throw new IOException("Unsupported block size: " + path);
+      }
+
+      final long length = Files.size(path);
+      long offset = 4 * 4;
+      while (offset + BLOCK_HEADER_LENGTH <= length) {
+        final long step = in.readLong();
+        final long position = ((long) in.readInt() << 32) | (in.readInt() & 0xFFFFFFFFL);
+        final int moveCount = in.readInt();
+        final int compressedLength = in.readInt();
+        if (offset + BLOCK_HEADER_LENGTH + compressedLength > length) {
+          break;
+        }
+        in.skipNBytes(compressedLength);
+
+        if (count == steps.length) {
+          steps = Arrays.copyOf(steps, 2 * count);
+          offsets = Arrays.copyOf(offsets, 2 * count);
+          positions = Arrays.copyOf(positions, 2 * count);
+          counts = Arrays.copyOf(counts, 2 * count);
+        }
+        steps[count] = step;
+        offsets[count] = offset;
+        positions[count] = position;
+        counts[count] = moveCount;
+        count++;
+        offset += BLOCK_HEADER_LENGTH + compressedLength;
+      }
+    } catch (EOFException e) {
+      throw new IOException("Truncated trajectory journal: " + path, e);
+    }
+
+    final TrajectoryReader reader = new TrajectoryReader(new RandomAccessFile(path.toFile(), "r"),
+        width, height, Arrays.copyOf(steps, count), Arrays.copyOf(offsets, count),
+        Arrays.copyOf(positions, count), Arrays.copyOf(counts, count));
+    if (count > 0) {
+      reader.seek(reader.getFirstStep());
+    }
+    return reader;
+  }
+
+  /**
+   * Returns the number of the first recorded step.
+   */
+  public long getFirstStep() {
+    return blockSteps.length == 0 ? 0 : blockSteps[0];
+  }
+
+  /**
+   * Returns the number of the step after the last recorded step.
+   */
+  public long getEndStep() {
+    final int last = blockSteps.length - 1;
+    return last < 0 ? 0 : blockSteps[last] + blockCounts[last];
+  }
+
+  /**
+   * Returns the width of the recorded board.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the recorded board.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Positions the reader at the given step i.e. the position of the ant is the position before
+   * computing this step.
+   * 
+   * @param step the step, between {@code getFirstStep()} and {@code getEndStep()}
+   * @throws IOException if the file cannot be read
+   */
+  public void seek(long step) throws IOException {
+    if (step < getFirstStep() || step > getEndStep()) {
+      throw new IllegalArgumentException("Step out of range: " + step);
+    }
+
+    int index = Arrays.binarySearch(blockSteps, step);
+    if (index < 0) {
+      index = -index - 2;
+    }
+    loadBlock(index);
+    while (getStep() < step) {
+      next();
+    }
+  }
+
+  /**
+   * Returns whether there is a recorded move at the current step.
+   */
+  public boolean hasNext() {
+    return block >= 0 && (move < blockCounts[block] || block + 1 < blockSteps.length);
+  }
+
+  /**
+   * Replays the move at the current step and advances to the next step.
+   * 
+   * @return the direction the ant moved in
+   * @throws IOException if the file cannot be read
+   */
+  public Direction next() throws IOException {
+    if (!hasNext()) {
+      throw new IllegalStateException("End of journal");
+    }
+    if (move == blockCounts[block]) {
+      loadBlock(block + 1);
+    }
+
+    final int direction = (moves[move >> 2] >> ((move & 3) << 1)) & 3;
+    final long position = TrajectoryJournal.move(xCoordinate, yCoordinate, direction, width,
+        height);
+    xCoordinate = (int) (position >> 32);
+    yCoordinate = (int) position;
+    move++;
+    return Direction.values()[direction];
+  }
+
+  /**
+   * Returns the current step.
+   */
+  public long getStep() {
+    return block < 0 ? 0 : blockSteps[block] + move;
+  }
+
+  /**
+   * Returns the x-Coordinate of the ant at the current step.
+   */
+  public int getX() {
+    return xCoordinate;
+  }
+
+  /**
+   * Returns the y-Coordinate of the ant at the current step.
+   */
+  public int getY() {
+    return yCoordinate;
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+  /** Reads and decompresses the given block and positions the reader at its first move. */
+  private void loadBlock(int index) throws IOException {
+    file.seek(blockOffsets[index] + BLOCK_HEADER_LENGTH - 4);
+    final byte[] compressed = new byte[file.readInt()];
+    file.readFully(compressed);
+
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      final int length = (blockCounts[index] + 3) >> 2;
+      if (inflater.inflate(moves, 0, length) != length) {
+        throw new IOException("Corrupted block " + index);
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupted block " + index, e);
+    } finally {
+      inflater.end();
+    }
+
+    block = index;
+    move = 0;
+    xCoordinate = (int) (blockPositions[index] >> 32);
+    yCoordinate = (int) blockPositions[index];
+  }
+
+}
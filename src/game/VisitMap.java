@@ -0,0 +1,176 @@
+package game;
+
+/**
+ * Stores how often each cell of a {@code Board} was visited by the ant and at which step it was
+ * visited first. A cell counts as visited whenever the ant computes a step on it. The values are
+ * stored in square chunks of primitive arrays which are only allocated once the ant enters them,
+ * thus sparse boards only pay for the region the ant has actually explored.
+ */
+public class VisitMap {
+
+  // the chunks are CHUNK_SIZE x CHUNK_SIZE cells large
+  private static final int CHUNK_BITS = 6;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  /**
+   * The largest possible number of visits, the counters saturate at this value.
+   */
+  public static final int MAXIMUM_VISITS = 0xFFFF;
+
+  /**
+   * The value returned for cells that have not been visited yet.
+   */
+  public static final int NEVER_VISITED = -1;
+
+  /**
+   * The width of the tracked board.
+   */
+  private final int width;
+
+  /**
+   * The height of the tracked board.
+   */
+  private final int height;
+
+  /**
+   * The number of chunks in one row of chunks.
+   */
+  private final int chunkColumns;
+
+  /**
+   * The visit counters (unsigned) for each chunk, {@code null} for chunks that were never entered.
+   */
+  private final short[][] visitCounts;
+
+  /**
+   * The first visits (step number + 1, 0 if never visited) for each chunk, {@code null} for chunks
+   * that were never entered.
+   */
+  private final int[][] firstVisits;
+
+  /**
+   * Creates a new {@code VisitMap} where no cell has been visited yet.
+   * 
+   * @param width non-negative width of the tracked board
+   * @param height non-negative height of the tracked board
+   */
+  VisitMap(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.chunkColumns = (width + CHUNK_MASK) >> CHUNK_BITS;
+    final int chunkRows = (height + CHUNK_MASK) >> CHUNK_BITS;
+    this.visitCounts = new short[chunkColumns * chunkRows][];
+    this.firstVisits = new int[chunkColumns * chunkRows][];
+  }
+
+  /** Returns the index of the chunk containing the given cell. */
+  private int chunkIndex(int x, int y) {
+    return (y >> CHUNK_BITS) * chunkColumns + (x >> CHUNK_BITS);
+  }
+
+  /** Returns the index of the given cell inside of its chunk. */
+  private static int cellIndex(int x, int y) {
+    return ((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK);
+  }
+
+  /**
+   * Records a visit of the given cell.
+   * 
+   * @param x x-Coordinate of the visited cell
+   * @param y y-Coordinate of the visited cell
+   * @param step the number of the step the cell is visited at
+   */
+  void visit(int x, int y, int step) {
+    final int chunk = chunkIndex(x, y);
+    short[] counts = visitCounts[chunk];
+    if (counts == null) {
+      counts = new short[CHUNK_SIZE * CHUNK_SIZE];
+      visitCounts[chunk] = counts;
+      firstVisits[chunk] = new int[CHUNK_SIZE * CHUNK_SIZE];
+    }
+
+    final int cell = cellIndex(x, y);
+    final int count = counts[cell] & MAXIMUM_VISITS;
+    if (count == 0) {
+      firstVisits[chunk][cell] = step + 1;
+    }
+    if (count < MAXIMUM_VISITS) {
+      counts[cell] = (short) (count + 1);
+    }
+  }
+
+  /**
+   * Returns how often the given cell was visited (at most {@code MAXIMUM_VISITS}).
+   * 
+   * @param x x-Coordinate of the cell
+   * @param y y-Coordinate of the cell
+   */
+  public int getVisitCount(int x, int y) {
+    final short[] counts = visitCounts[chunkIndex(x, y)];
+    return counts == null ? 0 : counts[cellIndex(x, y)] & MAXIMUM_VISITS;
+  }
+
+  /**
+   * Returns the number of the step the given cell was visited first or {@code NEVER_VISITED}.
+   * 
+   * @param x x-Coordinate of the cell
+   * @param y y-Coordinate of the cell
+   */
+  public int getFirstVisit(int x, int y) {
+    final int[] visits = firstVisits[chunkIndex(x, y)];
+    return visits == null ? NEVER_VISITED : visits[cellIndex(x, y)] - 1;
+  }
+
+  /**
+   * Returns the width of the tracked board.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the tracked board.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns a copy of this {@code VisitMap} for a resized board. Cells are moved by the given
+   * shift, cells that are out of range afterwards are dropped.
+   * 
+   * @param columns the new width
+   * @param rows the new height
+   * @param xAxisShift the value added to the x-Coordinate of each cell
+   * @param yAxisShift the value added to the y-Coordinate of each cell
+   */
+  VisitMap translate(int columns, int rows, int xAxisShift, int yAxisShift) {
+    VisitMap translated = new VisitMap(columns, rows);
+    for (int chunk = 0; chunk < visitCounts.length; chunk++) {
+      if (visitCounts[chunk] == null) {
+        continue;
+      }
+      final int chunkX = (chunk % chunkColumns) << CHUNK_BITS;
+      final int chunkY = (chunk / chunkColumns) << CHUNK_BITS;
+
+      for (int cell = 0; cell < CHUNK_SIZE * CHUNK_SIZE; cell++) {
+        final int count = visitCounts[chunk][cell] & MAXIMUM_VISITS;
+        final int x = chunkX + (cell & CHUNK_MASK) + xAxisShift;
+        final int y = chunkY + (cell >> CHUNK_BITS) + yAxisShift;
+        if (count == 0 || x < 0 || y < 0 || x >= columns || y >= rows) {
+          continue;
+        }
+        final int target = translated.chunkIndex(x, y);
+        if (translated.visitCounts[target] == null) {
+          translated.visitCounts[target] = new short[CHUNK_SIZE * CHUNK_SIZE];
+          translated.firstVisits[target] = new int[CHUNK_SIZE * CHUNK_SIZE];
+        }
+        translated.visitCounts[target][cellIndex(x, y)] = (short) count;
+        translated.firstVisits[target][cellIndex(x, y)] = firstVisits[chunk][cell];
+      }
+    }
+    return translated;
+  }
+
+}
@@ -0,0 +1,60 @@
+package game;
+
+/**
+ * Computes the keys of a Zobrist-style hash of a board. Instead of a table of random numbers the
+ * keys are derived from the coordinates by a 64-bit mixing function, thus boards of any size can be
+ * hashed without storing a key per cell. The hash of a board is the XOR of the keys of all cells
+ * that are not in state 0 and the key of the ant, thus it can be updated in constant time whenever
+ * a cell changes.
+ */
+final class Zobrist {
+
+  // constants of the SplitMix64 generator
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+  private static final long MIX_1 = 0xBF58476D1CE4E5B9L;
+  private static final long MIX_2 = 0x94D049BB133111EBL;
+
+  // distinguishes the keys of the ant from the keys of the cells
+  private static final long ANT_SEED = 0x2545F4914F6CDD1DL;
+
+  private Zobrist() {
+    // generating objects of this class is not intended
+    throw new AssertionError();
+  }
+
+  /** Returns the SplitMix64 finalizer of the given value. */
+  private static long mix(long value) {
+    long z = value;
+    z = (z ^ (z >>> 30)) * MIX_1;
+    z = (z ^ (z >>> 27)) * MIX_2;
+    return z ^ (z >>> 31);
+  }
+
+  /** Returns the key of a position. */
+  private static long positionKey(long seed, int x, int y) {
+    return mix(seed + GOLDEN_GAMMA * (((long) x << 32) | (y & 0xFFFFFFFFL)));
+  }
+
+  /**
+   * Returns the key of a cell in the given state, 0 for state 0.
+   */
+  static long cellKey(int x, int y, int state) {
+    if (state == 0) {
+      return 0;
+    }
+    return mix(positionKey(0, x, y) + GOLDEN_GAMMA * state);
+  }
+
+  /**
+   * Returns the key of an ant (position, orientation and state), 0 for no ant.
+   */
+  static long antKey(Ant ant) {
+    if (ant == null) {
+      return 0;
+    }
+    final long orientationAndState = ((long) ant.getState() << 2) | ant.getOrientation().ordinal();
+    return mix(positionKey(ANT_SEED, ant.getX(), ant.getY())
+        + GOLDEN_GAMMA * (orientationAndState + 1));
+  }
+
+}
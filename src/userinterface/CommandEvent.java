@@ -0,0 +1,23 @@
+package userinterface;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event emitted for every command executed by the {@code Shell}.
+ */
+@Name("userinterface.Command")
+@Label("Shell Command")
+@Description("A command executed by the shell")
+@Category({"Langton's Ant", "Shell"})
+class CommandEvent extends jdk.jfr.Event {
+
+  @Label("Command")
+  String command;
+
+  @Label("Input")
+  String input;
+
+}
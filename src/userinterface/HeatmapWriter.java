@@ -0,0 +1,90 @@
+package userinterface;
+
+import game.VisitMap;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * Exports the visits tracked by a {@code VisitMap} either as heatmap image or as binary dump.
+ */
+final class HeatmapWriter {
+
+  // identifies binary dumps of a VisitMap ("ANTV")
+  private static final int DUMP_MAGIC = 0x414E5456;
+
+  private HeatmapWriter() {
+    // generating objects of this class is not intended
+    throw new AssertionError();
+  }
+
+  /**
+   * Writes the visit counts as greyscale PNG image. The brightness of a pixel grows
+   * logarithmically with the number of visits of the cell, unvisited cells are black.
+   * 
+   * @param visits the visits to be exported
+   * @param file the image file to be written
+   * @throws IOException if the file cannot be written
+   */
+  static void writeImage(VisitMap visits, File file) throws IOException {
+    final int width = visits.getWidth();
+    final int height = visits.getHeight();
+
+    int maximum = 1;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        maximum = Math.max(maximum, visits.getVisitCount(x, y));
+      }
+    }
+
+    final double scale = 255 / Math.log1p(maximum);
+    final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        final int grey = (int) Math.round(Math.log1p(visits.getVisitCount(x, y)) * scale);
+        image.setRGB(x, y, grey << 16 | grey << 8 | grey);
+      }
+    }
+
+    if (!ImageIO.write(image, "png", file)) {
+      throw new IOException("No PNG writer available");
+    }
+  }
+
+  /**
+   * Writes the visits as binary dump. The dump starts with the magic number 0x414E5456, the width
+   * and the height (each as big-endian int), followed by the visit counts (unsigned short) and
+   * then the first visits (int, -1 if never visited) of all cells in row-major order.
+   * 
+   * @param visits the visits to be exported
+   * @param file the dump file to be written
+   * @throws IOException if the file cannot be written
+   */
+  static void writeDump(VisitMap visits, File file) throws IOException {
+    final int width = visits.getWidth();
+    final int height = visits.getHeight();
+
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(DUMP_MAGIC);
+      out.writeInt(width);
+      out.writeInt(height);
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          out.writeShort(visits.getVisitCount(x, y));
+        }
+      }
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          out.writeInt(visits.getFirstVisit(x, y));
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,136 @@
+package userinterface;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Server to run many independent sessions of Langton's Ant in one JVM. Every client connecting
+ * over a loopback TCP socket or a Unix domain socket gets its own {@code Shell} with its own board.
+ * The sessions are run on virtual threads (if provided by the runtime), all expensive commands are
+ * computed by a shared pool of platform threads, one per available processor. Since any local
+ * client can connect, the commands of the sessions only use files inside of a directory given at
+ * startup, without one they cannot use files at all.
+ */
+public final class Server {
+
+  private Server() {
+    // generating objects of this class is not intended
+    throw new AssertionError();
+  }
+
+  /**
+   * Starts a new server that waits for clients.
+   * 
+   * @param args either the port of the loopback TCP socket or the path of the Unix domain socket,
+   *        optionally followed by the directory the sessions may read and write files in
+   * @throws IOException if the socket cannot be opened or the directory does not exist
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1 && args.length != 2) {
+      System.err.println("Usage: Server <port|socket path> [file directory]");
+      return;
+    }
+    final Path fileDirectory = args.length == 2 ? Paths.get(args[1]).toRealPath() : null;
+    if (fileDirectory != null && !Files.isDirectory(fileDirectory)) {
+      throw new NotDirectoryException(fileDirectory.toString());
+    }
+
+    final ExecutorService computation =
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    final ExecutorService sessions = newSessionExecutor();
+
+    try (ServerSocketChannel server = open(args[0])) {
+      System.out.println("Listening on " + server.getLocalAddress());
+      while (true) {
+        final SocketChannel client = server.accept();
+        sessions.execute(() -> runSession(client, computation, fileDirectory));
+      }
+    } finally {
+      sessions.shutdownNow();
+      computation.shutdownNow();
+    }
+  }
+
+  /** Opens a loopback TCP socket if the address is a port, otherwise a Unix domain socket. */
+  private static ServerSocketChannel open(String address) throws IOException {
+    try {
+      final int port = Integer.parseInt(address);
+      return ServerSocketChannel.open()
+          .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    } catch (NumberFormatException e) {
+      // not a port, thus a path
+    }
+
+    final Path path = Paths.get(address);
+    if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+      // only a socket left behind by a server that did not shut down is replaced
+      if (!Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)
+          .isOther()) {
+        throw new FileAlreadyExistsException(path.toString(), null, "Not a socket");
+      } else if (isListening(path)) {
+        throw new FileAlreadyExistsException(path.toString(), null, "Socket in use");
+      }
+      Files.delete(path);
+    }
+    return ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+        .bind(UnixDomainSocketAddress.of(path));
+  }
+
+  /** Returns whether a server accepts connections on a Unix domain socket. */
+  private static boolean isListening(Path path) {
+    try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+      return probe.connect(UnixDomainSocketAddress.of(path));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns an executor starting a new virtual thread per session. Virtual threads are looked up
+   * reflectively so the server still runs (with one platform thread per session) on runtimes
+   * without them.
+   */
+  private static ExecutorService newSessionExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  /** Runs a {@code Shell} for the given client until it quits or disconnects. */
+  private static void runSession(SocketChannel client, ExecutorService computation,
+      Path fileDirectory) {
+    try (SocketChannel channel = client) {
+      final BufferedReader input = new BufferedReader(
+          new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+      final PrintStream output =
+          new PrintStream(Channels.newOutputStream(channel), true, StandardCharsets.UTF_8);
+      new Shell(input, output, output, computation, fileDirectory).runAnt();
+      output.flush();
+    } catch (IOException e) {
+      // the client disconnected, nothing left to clean up
+    }
+  }
+
+}
@@ -2,14 +2,38 @@ package userinterface;
 
 import game.Ant;
 import game.Board;
-import game.Cell;
+import game.CellView;
 import game.Coordinate;
+import game.Ensemble;
+import game.EnsembleResult;
 import game.Grid;
+import game.GridEngine;
+import game.GridEngines;
+import game.Rule;
+import game.RunningStatistics;
+import game.ShardedSimulation;
+import game.SnapshotCache;
+import game.StepPredicate;
+import game.VisitMap;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.Map;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Shell to run Langton's Ant.
@@ -19,13 +43,18 @@ public class Shell {
   // ANSI escape sequence to reset the color
   private static final String ANSI_RESET = "\u001B[0m";
 
-  // state configuration representation
-  private static final char TURN_RIGHT = 'R';
-  private static final char TURN_LEFT = 'L';
+  // ANSI escape sequence to clear the screen and move the cursor to the top left corner
+  private static final String ANSI_HOME = "\u001B[H\u001B[2J";
 
-  // currently possible number of states (2-12 are possible)
-  private static final int MINIMUM_NUMBER_OF_STATES = 2;
-  private static final int MAXIMUM_NUMBER_OF_STATES = 12;
+  private static final long NANOSECONDS_PER_SECOND = 1_000_000_000L;
+
+  // the maximum number of rounds of one "run until" command or one frame of "play", since every
+  // round is saved
+  private static final int RUN_LIMIT = 1_000_000;
+
+  // the maximum number of worker processes of one "shard" command, each one is a separate JVM
+  private static final int SHARD_LIMIT =
+      Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
 
   // currently possible number of ants
   private static final int MAXIMUM_NUMBER_OF_ANTS = 1;
@@ -38,10 +67,109 @@ public class Shell {
   private static final String NO_ANT_EXISTING = "Error! No ant existing.";
   private static final String TOO_MANY_ANTS = "Error! Only one ant is allowed at once.";
   private static final String INDEX_OUT_OF_RANGE = "Error! Index out of range.";
+  private static final String NOT_TRACKING = "Error! Visits are not tracked.";
+  private static final String WRITE_FAILED = "Error! Could not write file.";
+  private static final String READ_FAILED = "Error! Could not read file.";
+  private static final String NO_CACHE = "Error! No snapshot cache opened.";
+  private static final String FILE_NOT_ALLOWED = "Error! This file may not be used here.";
+  private static final String WORKERS_FAILED = "Error! The worker processes failed.";
+  private static final String TOO_MANY_WORKERS =
+      "Error! At most " + SHARD_LIMIT + " worker processes are allowed.";
+  private static final String UNKNOWN_ENGINE = "Error! Unknown engine.";
+  private static final String COMMAND_FAILED = "Error! The command failed: ";
+  private static final String NOT_REACHED =
+      "Error! The condition did not hold within " + RUN_LIMIT + " rounds.";
+
+  /**
+   * The reader the commands are read from.
+   */
+  private final BufferedReader input;
+
+  /**
+   * The stream all regular output is written to.
+   */
+  private final PrintStream output;
+
+  /**
+   * The stream all error messages are written to.
+   */
+  private final PrintStream error;
+
+  /**
+   * The executor computing expensive commands or {@code null} if they are computed directly.
+   */
+  private final ExecutorService computation;
+
+  /**
+   * The board created by the last command "new" and all branches forked from it.
+   */
+  private final List<Grid> branches;
+
+  /**
+   * Saves whether the files used by commands are restricted to {@code fileDirectory}, e.g. for
+   * sessions of a {@code Server}.
+   */
+  private final boolean restricted;
+
+  /**
+   * The directory the files of a restricted shell are resolved in, {@code null} if a restricted
+   * shell must not use any file.
+   */
+  private final Path fileDirectory;
 
-  private Shell() {
-    // generating objects of this class is not intended
-    throw new AssertionError();
+  /**
+   * The next line, which is read in the background while the board is animated, or {@code null}
+   * if the next line is read directly.
+   */
+  private Future<String> pendingLine;
+
+  /**
+   * The snapshot cache answering the command "cached", {@code null} if none is opened.
+   */
+  private SnapshotCache cache;
+
+  /**
+   * Creates a new {@code Shell}.
+   * 
+   * @param input the reader the commands are read from
+   * @param output the stream all regular output is written to
+   * @param error the stream all error messages are written to
+   * @param computation the executor computing expensive commands such as "step" or {@code null}
+   *        if they are computed by the thread running the shell
+   */
+  Shell(BufferedReader input, PrintStream output, PrintStream error,
+      ExecutorService computation) {
+    this(input, output, error, computation, false, null);
+  }
+
+  /**
+   * Creates a new {@code Shell} whose commands only read and write files inside of a directory.
+   * 
+   * @param input the reader the commands are read from
+   * @param output the stream all regular output is written to
+   * @param error the stream all error messages are written to
+   * @param computation the executor computing expensive commands such as "step" or {@code null}
+   *        if they are computed by the thread running the shell
+   * @param fileDirectory the directory all files are resolved in or {@code null} if no command may
+   *        use files
+   */
+  Shell(BufferedReader input, PrintStream output, PrintStream error,
+      ExecutorService computation, Path fileDirectory) {
+    this(input, output, error, computation, true, fileDirectory);
+  }
+
+  /**
+   * Creates a new {@code Shell}.
+   */
+  private Shell(BufferedReader input, PrintStream output, PrintStream error,
+      ExecutorService computation, boolean restricted, Path fileDirectory) {
+    this.input = input;
+    this.output = output;
+    this.error = error;
+    this.computation = computation;
+    this.restricted = restricted;
+    this.fileDirectory = fileDirectory == null ? null : fileDirectory.toAbsolutePath().normalize();
+    this.branches = new ArrayList<>();
   }
 
   /**
@@ -52,97 +180,198 @@ public class Shell {
    */
   public static void main(String[] args) throws IOException {
     final BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
-    runAnt(stdin);
+    new Shell(stdin, System.out, System.err, null).runAnt();
   }
 
   /**
-   * Helper method to run the default mode.
+   * Runs the shell until the command "quit" is entered or the input ends.
    * 
    * @throws IOException if the InputStream fails
    */
-  private static void runAnt(final BufferedReader stdin) throws IOException {
+  void runAnt() throws IOException {
     Grid game = null;
     boolean run = true;
 
     while (run) {
-      System.out.print("ant> ");
+      output.print("ant> ");
+      output.flush();
 
-      final String input = stdin.readLine();
-      if (input == null) {
+      final String line = readLine();
+      if (line == null) {
         break;
       }
 
-      final String[] tokens = input.trim().split("\\s+");
+      final String[] tokens = line.trim().split("\\s+");
       final String firstInput = tokens[0];
       final ShellCommand command = identifyCommand(firstInput, tokens);
 
-      switch (command) {
-        case NEW:
-          game = newHelper(game, tokens);
-          break;
-        case ANT:
-          antHelper(game, tokens);
-          break;
-        case UNANT:
-          unantHelper(game);
-          break;
-        case STEP:
-          stepHelper(game);
-          break;
-        case MULTIPLE_STEPS:
-          stepHelper(game, tokens);
-          break;
-        case PRINT:
-          printHelper(game);
-          break;
-        case CLEAR:
-          clearHelper(game);
-          break;
-        case RESIZE:
-          resizeHelper(game, tokens);
-          break;
-        case HELP:
-          helpPrinter();
-          break;
-        case QUIT:
-          run = false;
-          break;
-        default:
-          printError(COMMAND_DOESNT_EXIST);
-          break;
+      final CommandEvent event = new CommandEvent();
+      event.begin();
+
+      try {
+        switch (command) {
+          case NEW:
+          case NEW_WITH_ENGINE:
+            final Grid previous = game;
+            game = newHelper(game, tokens);
+            if (game != previous) {
+              closeBranches();
+              branches.add(game);
+            }
+            break;
+          case ANT:
+            antHelper(game, tokens);
+            break;
+          case UNANT:
+            unantHelper(game);
+            break;
+          case STEP:
+            stepHelper(game);
+            break;
+          case MULTIPLE_STEPS:
+            stepHelper(game, tokens);
+            break;
+          case PLAY:
+          case TIMED_PLAY:
+            playHelper(game, tokens);
+            break;
+          case PRINT:
+            printHelper(game);
+            break;
+          case CLEAR:
+            clearHelper(game);
+            break;
+          case RESIZE:
+            resizeHelper(game, tokens);
+            break;
+          case COUNT:
+            countHelper(game);
+            break;
+          case TRACK:
+            trackHelper(game, tokens);
+            break;
+          case HEATMAP:
+            heatmapHelper(game, tokens, false);
+            break;
+          case VISITS:
+            heatmapHelper(game, tokens, true);
+            break;
+          case JOURNAL:
+            journalHelper(game, tokens);
+            break;
+          case CHECKPOINT:
+          case CHECKPOINT_OFF:
+            checkpointHelper(game, tokens);
+            break;
+          case RESUME:
+            game = resumeHelper(game, tokens);
+            break;
+          case CACHE:
+          case CACHE_OFF:
+            cacheHelper(tokens);
+            break;
+          case CACHED:
+            game = cachedHelper(game, tokens);
+            break;
+          case SHARD:
+            shardHelper(game, tokens);
+            break;
+          case ENSEMBLE:
+          case ENSEMBLE_WITH_SEED:
+            ensembleHelper(game, tokens);
+            break;
+          case INDEX:
+            indexHelper(game, tokens);
+            break;
+          case REGION:
+            regionHelper(game, tokens);
+            break;
+          case SET:
+            setHelper(game, tokens);
+            break;
+          case FORK:
+          case FORK_WITH_RULE:
+            game = forkHelper(game, tokens);
+            break;
+          case BRANCH:
+            game = branchHelper(game, tokens);
+            break;
+          case ENGINES:
+            output.println(String.join(" ", GridEngines.getNames()));
+            break;
+          case CHECK:
+            checkHelper(game, tokens);
+            break;
+          case RUN_UNTIL_STEP:
+          case RUN_UNTIL_CELL:
+          case RUN_UNTIL_REGION:
+            runHelper(game, tokens);
+            break;
+          case HELP:
+            helpPrinter();
+            break;
+          case HASH:
+            hashHelper(game);
+            break;
+          case QUIT:
+            run = false;
+            break;
+          default:
+            printError(COMMAND_DOESNT_EXIST);
+            break;
+        }
+      } catch (RuntimeException e) {
+        // a failing command must not end the session
+        printError(COMMAND_FAILED + e);
+      }
+
+      event.end();
+      if (event.shouldCommit()) {
+        event.command = command.getCommandAsString();
+        event.input = line;
+        event.commit();
       }
     }
+    closeBranches();
   }
 
   /** Helper method for the command "new". Also checks all parameters for errors. */
-  private static Grid newHelper(final Grid game, final String[] parameters) {
-    boolean parametersAreNonNegative = !containsNegativeNumbers(parameters);
-    boolean statesAreInvalid = !checkForCorrectStates(parameters[parameters.length - 1]);
+  private Grid newHelper(final Grid game, final String[] parameters) {
+    final String[] dimensions = Arrays.copyOf(parameters, 3);
+    boolean dimensionsAreInvalid = !checkForNonNegativeNumbers(dimensions);
+    boolean statesAreInvalid = !checkForCorrectStates(parameters[3]);
+    boolean engineIsUnknown =
+        parameters.length > 4 && !GridEngines.getNames().contains(parameters[4]);
 
-    if (parametersAreNonNegative) {
+    if (dimensionsAreInvalid) {
       printError(INVALID_INPUT);
       return game;
     } else if (statesAreInvalid) {
       printError(INVALID_STATES);
       return game;
+    } else if (engineIsUnknown) {
+      printError(UNKNOWN_ENGINE);
+      return game;
     }
 
     final int columns = Integer.parseInt(parameters[1]);
     final int rows = Integer.parseInt(parameters[2]);
     final String states = parameters[3];
+    final GridEngine engine =
+        parameters.length > 4 ? GridEngines.get(parameters[4]) : GridEngines.getDefault();
 
-    return Board.create(columns, rows, states);
+    return engine.create(columns, rows, states);
   }
 
   /** Helper method for the command "ant". Also checks all parameters for errors. */
-  private static void antHelper(final Grid game, final String[] parameters) {
+  private void antHelper(final Grid game, final String[] parameters) {
     if (game == null) {
       printError(NO_BOARD_EXISTING);
       return;
     } else if (game.getAnts().size() == MAXIMUM_NUMBER_OF_ANTS) {
       printError(TOO_MANY_ANTS);
       return;
-    } else if (!containsNegativeNumbers(parameters)) {
+    } else if (!checkForNonNegativeNumbers(parameters)) {
       printError(INVALID_INPUT);
       return;
     }
@@ -159,7 +388,7 @@ public class Shell {
   }
 
   /** Helper method for the command "unant". */
-  private static void unantHelper(final Grid game) {
+  private void unantHelper(final Grid game) {
     if (game == null) {
       printError(NO_BOARD_EXISTING);
       return;
@@ -171,10 +400,10 @@ public class Shell {
   }
 
   /** Helper method for the command "step". */
-  private static void stepHelper(final Grid game) {
+  private void stepHelper(final Grid game) {
     if (game != null && !game.getAnts().isEmpty()) {
-      game.performStep();
-      System.out.println(game.getStepCount());
+      compute(() -> game.performStep());
+      output.println(game.getStepCount());
     } else if (game != null && game.getAnts().isEmpty()) {
       printError(NO_ANT_EXISTING);
     } else {
@@ -186,7 +415,7 @@ public class Shell {
    * Helper method for the command "step 'n'" i.e. multiple steps. Also checks all parameters for
    * errors.
    */
-  private static void stepHelper(final Grid game, final String[] parameters) {
+  private void stepHelper(final Grid game, final String[] parameters) {
     if (!checkForInvalidInput(parameters)) {
       printError(INVALID_INPUT);
       return;
@@ -200,19 +429,122 @@ public class Shell {
         printError(NO_ANT_EXISTING);
         return;
       }
-      game.performStep(numberOfSteps);
+      compute(() -> game.performStep(numberOfSteps));
     } else {
       if (numberOfSteps == 0) {
         printError(INVALID_INPUT);
         return;
       }
-      game.reset(-numberOfSteps);
+      compute(() -> game.reset(-numberOfSteps));
+    }
+    output.println(game.getStepCount());
+  }
+
+  /** Returns the next line, which may have been read in the background already. */
+  private String readLine() throws IOException {
+    if (pendingLine == null) {
+      return input.readLine();
+    }
+    final Future<String> line = pendingLine;
+    pendingLine = null;
+    try {
+      return line.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading a command");
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+          : new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Helper method for the commands "play 'fps'" and "play 'fps' 'seconds'". Computes rounds and
+   * redraws the grid at the given frame rate until the time is up or, without a time, until the
+   * next line is entered. That line is read in the background and executed as the next command,
+   * thus it may be any command. The number of rounds per frame adapts to the measured time per
+   * round and per redraw, frames are skipped rather than delayed if the computation falls behind.
+   */
+  private void playHelper(final Grid game, final String[] parameters) {
+    if (!checkForNonNegativeNumbers(parameters)) {
+      printError(INVALID_INPUT);
+      return;
+    } else if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    } else if (game.getAnts().isEmpty()) {
+      printError(NO_ANT_EXISTING);
+      return;
+    }
+
+    final int framesPerSecond = Integer.parseInt(parameters[1]);
+    if (framesPerSecond == 0) {
+      printError(INVALID_INPUT);
+      return;
+    }
+    final long frameTime = NANOSECONDS_PER_SECOND / framesPerSecond;
+    final long start = System.nanoTime();
+    final long end = parameters.length > 2
+        ? start + Integer.parseInt(parameters[2]) * NANOSECONDS_PER_SECOND : Long.MAX_VALUE;
+    if (parameters.length == 2) {
+      // a blocking read cannot be interrupted, thus the line is read by a separate thread
+      final FutureTask<String> line = new FutureTask<>(input::readLine);
+      final Thread reader = new Thread(line, "shell-input");
+      reader.setDaemon(true);
+      reader.start();
+      pendingLine = line;
     }
-    System.out.println(game.getStepCount());
+
+    // running estimates of the time per round and per redraw in nanoseconds
+    double timePerStep = 0;
+    double timePerFrame = 0;
+    int stepsPerFrame = 1;
+    long frames = 0;
+    long skippedFrames = 0;
+    final int firstStep = game.getStepCount();
+    long deadline = start + frameTime;
+
+    // at least one frame is computed, even if the next line is read at once
+    do {
+      final long stepStart = System.nanoTime();
+      final int steps = stepsPerFrame;
+      compute(() -> game.performStep(steps));
+      final long stepEnd = System.nanoTime();
+      timePerStep = estimate(timePerStep, (double) (stepEnd - stepStart) / steps);
+
+      if (stepEnd > deadline) {
+        // behind schedule, skip this frame instead of queuing it
+        skippedFrames++;
+        deadline = stepEnd + frameTime;
+      } else {
+        output.print(ANSI_HOME + renderGrid(game));
+        output.println(game.getStepCount());
+        output.flush();
+        frames++;
+        timePerFrame = estimate(timePerFrame, System.nanoTime() - stepEnd);
+
+        LockSupport.parkNanos(deadline - System.nanoTime());
+        deadline += frameTime;
+      }
+
+      // fill the frame with rounds, keeping a quarter of it in reserve
+      final double budget = frameTime * 0.75 - timePerFrame;
+      stepsPerFrame = (int) Math.max(1, Math.min(RUN_LIMIT, budget / timePerStep));
+    } while (System.nanoTime() < end && (pendingLine == null || !pendingLine.isDone())
+        && !game.getAnts().isEmpty());
+
+    final double seconds = (double) (System.nanoTime() - start) / NANOSECONDS_PER_SECOND;
+    output.println(String.format("%.1f fps (%d frames skipped), %.0f steps/s", frames / seconds,
+        skippedFrames, (game.getStepCount() - firstStep) / seconds));
+  }
+
+  /** Updates a running estimate by an exponential moving average. */
+  private static double estimate(double estimate, double measurement) {
+    return estimate == 0 ? measurement : 0.8 * estimate + 0.2 * measurement;
   }
 
   /** Helper method for the command "print". */
-  private static void printHelper(final Grid game) {
+  private void printHelper(final Grid game) {
     if (game != null) {
       printGrid(game);
     } else {
@@ -221,7 +553,7 @@ public class Shell {
   }
 
   /** Helper method for the command "clear". */
-  private static void clearHelper(final Grid game) {
+  private void clearHelper(final Grid game) {
     if (game != null) {
       game.clear();
     } else {
@@ -230,11 +562,11 @@ public class Shell {
   }
 
   /** Helper method for the command "resize". */
-  private static void resizeHelper(final Grid game, final String[] parameters) {
+  private void resizeHelper(final Grid game, final String[] parameters) {
     if (game == null) {
       printError(NO_BOARD_EXISTING);
       return;
-    } else if (containsNegativeNumbers(parameters)) {
+    } else if (!checkForNonNegativeNumbers(parameters)) {
       printError(INVALID_INPUT);
       return;
     }
@@ -242,66 +574,629 @@ public class Shell {
     final int columns = Integer.parseInt(parameters[1]);
     final int rows = Integer.parseInt(parameters[2]);
 
-    game.resize(columns, rows);
+    compute(() -> game.resize(columns, rows));
+  }
+
+  /** Helper method for the command "count". */
+  private void countHelper(final Grid game) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    }
+
+    for (final StateRepresentation state : StateRepresentation.values()) {
+      if (state.getNumber() < game.getNumberOfStates()) {
+        output.println(state.getRepresentation() + ": " + game.getPopulation(state.getNumber()));
+      }
+    }
+  }
+
+  /** Helper method for the command "hash". */
+  private void hashHelper(final Grid game) {
+    if (game != null) {
+      output.println(String.format("%016x", game.getHash()));
+    } else {
+      printError(NO_BOARD_EXISTING);
+    }
+  }
+
+  /** Helper method for the command "track". */
+  private void trackHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+    } else if (parameters[1].equalsIgnoreCase("on")) {
+      game.setVisitTracking(true);
+    } else if (parameters[1].equalsIgnoreCase("off")) {
+      game.setVisitTracking(false);
+    } else {
+      printError(INVALID_INPUT);
+    }
+  }
+
+  /** Helper method for the command "index". */
+  private void indexHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+    } else if (parameters[1].equalsIgnoreCase("on")) {
+      game.setRegionIndex(true);
+    } else if (parameters[1].equalsIgnoreCase("off")) {
+      game.setRegionIndex(false);
+    } else {
+      printError(INVALID_INPUT);
+    }
+  }
+
+  /** Helper method for the command "region 'x' 'y' 'width' 'height'". */
+  private void regionHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    } else if (!checkForNonNegativeNumbers(parameters)) {
+      printError(INVALID_INPUT);
+      return;
+    }
+
+    final int x = Integer.parseInt(parameters[1]);
+    final int y = Integer.parseInt(parameters[2]);
+    final int width = Integer.parseInt(parameters[3]);
+    final int height = Integer.parseInt(parameters[4]);
+    if (x > game.getWidth() - width || y > game.getHeight() - height) {
+      printError(INDEX_OUT_OF_RANGE);
+      return;
+    }
+
+    for (final StateRepresentation state : StateRepresentation.values()) {
+      if (state.getNumber() < game.getNumberOfStates()) {
+        output.println(state.getRepresentation() + ": "
+            + game.getPopulation(state.getNumber(), x, y, width, height));
+      }
+    }
+  }
+
+  /** Helper method for the commands "heatmap" and "visits". */
+  private void heatmapHelper(final Grid game, final String[] parameters,
+      final boolean dump) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    }
+    final VisitMap visits = game.getVisitMap();
+    if (visits == null) {
+      printError(NOT_TRACKING);
+      return;
+    }
+
+    final Path file = resolveFile(parameters[1]);
+    if (file == null) {
+      printError(FILE_NOT_ALLOWED);
+      return;
+    }
+
+    try {
+      if (dump) {
+        HeatmapWriter.writeDump(visits, file.toFile());
+      } else {
+        HeatmapWriter.writeImage(visits, file.toFile());
+      }
+    } catch (IOException e) {
+      printError(WRITE_FAILED);
+    }
+  }
+
+  /** Helper method for the command "journal". */
+  private void journalHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    }
+
+    try {
+      if (parameters[1].equalsIgnoreCase("off")) {
+        game.stopJournal();
+      } else if (game.getAnts().isEmpty()) {
+        printError(NO_ANT_EXISTING);
+      } else {
+        final Path file = resolveFile(parameters[1]);
+        if (file == null) {
+          printError(FILE_NOT_ALLOWED);
+        } else {
+          game.startJournal(file);
+        }
+      }
+    } catch (IOException e) {
+      printError(WRITE_FAILED);
+    }
+  }
+
+  /** Helper method for the command "checkpoint". */
+  private void checkpointHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    }
+
+    try {
+      if (parameters.length == 2) {
+        if (parameters[1].equalsIgnoreCase("off")) {
+          game.stopCheckpoints();
+        } else {
+          printError(INVALID_INPUT);
+        }
+        return;
+      }
+      final String[] intervals = {parameters[0], parameters[2], parameters[3]};
+      if (!checkForNonNegativeNumbers(intervals)) {
+        printError(INVALID_INPUT);
+        return;
+      }
+      final Path directory = resolveFile(parameters[1]);
+      if (directory == null) {
+        printError(FILE_NOT_ALLOWED);
+        return;
+      }
+      game.startCheckpoints(directory, Integer.parseInt(parameters[2]),
+          Integer.parseInt(parameters[3]) * 1000L);
+    } catch (IOException e) {
+      printError(WRITE_FAILED);
+    }
+  }
+
+  /** Helper method for the commands "cache 'dir' 'megabytes'" and "cache off". */
+  private void cacheHelper(final String[] parameters) {
+    if (parameters.length == 2) {
+      if (parameters[1].equalsIgnoreCase("off")) {
+        cache = null;
+      } else {
+        printError(INVALID_INPUT);
+      }
+      return;
+    } else if (!checkForNonNegativeNumbers(new String[] {parameters[0], parameters[2]})) {
+      printError(INVALID_INPUT);
+      return;
+    }
+
+    final Path directory = resolveFile(parameters[1]);
+    if (directory == null) {
+      printError(FILE_NOT_ALLOWED);
+      return;
+    }
+    try {
+      cache = SnapshotCache.open(directory, Integer.parseInt(parameters[2]) * 1024L * 1024L);
+    } catch (IOException e) {
+      printError(READ_FAILED);
+    }
+  }
+
+  /**
+   * Helper method for the command "cached 'cols' 'rows' 'config' 'x' 'y' 'n'". The board answered
+   * by the snapshot cache replaces the current one.
+   */
+  private Grid cachedHelper(final Grid game, final String[] parameters) {
+    final String[] numbers = {parameters[0], parameters[1], parameters[2], parameters[4],
+        parameters[5], parameters[6]};
+    if (cache == null) {
+      printError(NO_CACHE);
+      return game;
+    } else if (!checkForNonNegativeNumbers(numbers)) {
+      printError(INVALID_INPUT);
+      return game;
+    } else if (!checkForCorrectStates(parameters[3])) {
+      printError(INVALID_STATES);
+      return game;
+    }
+
+    final int width = Integer.parseInt(parameters[1]);
+    final int height = Integer.parseInt(parameters[2]);
+    final int x = Integer.parseInt(parameters[4]);
+    final int y = Integer.parseInt(parameters[5]);
+    if (width == 0 || height == 0) {
+      printError(INVALID_INPUT);
+      return game;
+    } else if (x >= width || y >= height) {
+      printError(INDEX_OUT_OF_RANGE);
+      return game;
+    }
+
+    final Grid[] cached = new Grid[1];
+    try {
+      compute(() -> {
+        try {
+          cached[0] =
+              cache.get(width, height, parameters[3], x, y, Integer.parseInt(parameters[6]));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      printError(WRITE_FAILED);
+      return game;
+    }
+    closeBranches();
+    branches.add(cached[0]);
+    return cached[0];
+  }
+
+  /** Helper method for the command "resume". */
+  private Grid resumeHelper(final Grid game, final String[] parameters) {
+    final Path directory = resolveFile(parameters[1]);
+    if (directory == null) {
+      printError(FILE_NOT_ALLOWED);
+      return game;
+    }
+    final Grid resumed;
+    try {
+      resumed = Board.resume(directory);
+    } catch (IOException e) {
+      printError(READ_FAILED);
+      return game;
+    }
+    closeBranches();
+    branches.add(resumed);
+    return resumed;
+  }
+
+  /**
+   * Returns the path of a file given to a command. A restricted shell resolves it in its file
+   * directory and returns {@code null} if it is absolute, leaves the directory or no file may be
+   * used at all.
+   */
+  private Path resolveFile(String name) {
+    if (!restricted) {
+      return Paths.get(name);
+    } else if (fileDirectory == null) {
+      return null;
+    }
+    final Path file;
+    try {
+      file = Paths.get(name);
+    } catch (InvalidPathException e) {
+      return null;
+    }
+    final Path resolved = fileDirectory.resolve(file).normalize();
+    return file.isAbsolute() || !resolved.startsWith(fileDirectory) ? null : resolved;
+  }
+
+  /**
+   * Writes the remaining moves of the board and all of its branches into their journals and the
+   * pending checkpoints, since they are no longer used, and forgets the branches.
+   */
+  private void closeBranches() {
+    for (final Grid branch : branches) {
+      try {
+        branch.stopJournal();
+      } catch (IOException e) {
+        printError(WRITE_FAILED);
+      }
+      try {
+        branch.stopCheckpoints();
+      } catch (IOException e) {
+        printError(WRITE_FAILED);
+      }
+    }
+    branches.clear();
+  }
+
+  /**
+   * Helper method for the commands "run until". Computes rounds until the condition holds, at most
+   * {@code RUN_LIMIT} rounds.
+   */
+  private void runHelper(final Grid game, final String[] parameters) {
+    final String[] numbers = new String[parameters.length - 2];
+    numbers[0] = parameters[0];
+    System.arraycopy(parameters, 3, numbers, 1, numbers.length - 1);
+    if (!parameters[1].equalsIgnoreCase("until") || !checkForNonNegativeNumbers(numbers)) {
+      printError(INVALID_INPUT);
+      return;
+    } else if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    } else if (game.getAnts().isEmpty()) {
+      printError(NO_ANT_EXISTING);
+      return;
+    }
+
+    final boolean[] reached = new boolean[1];
+    try {
+      final StepPredicate condition = parseCondition(parameters);
+      if (condition == null) {
+        printError(INVALID_INPUT);
+        return;
+      }
+      final int maximum = Math.min(RUN_LIMIT, Integer.MAX_VALUE - game.getStepCount());
+      compute(() -> reached[0] = game.performStepsUntil(condition, maximum));
+    } catch (IndexOutOfBoundsException e) {
+      printError(INDEX_OUT_OF_RANGE);
+      return;
+    } catch (IllegalArgumentException e) {
+      printError(INVALID_INPUT);
+      return;
+    }
+    if (!reached[0]) {
+      printError(NOT_REACHED);
+    }
+    output.println(game.getStepCount());
+  }
+
+  /** Returns the condition of a "run until" command or {@code null} if it is unknown. */
+  private static StepPredicate parseCondition(final String[] parameters) {
+    final String predicate = parameters[2].toLowerCase();
+    final int[] arguments = new int[parameters.length - 3];
+    for (int i = 0; i < arguments.length; i++) {
+      arguments[i] = Integer.parseInt(parameters[i + 3]);
+    }
+
+    if (arguments.length == 1 && predicate.equals("step")) {
+      return StepPredicate.stepReaches(arguments[0]);
+    } else if (arguments.length == 2 && predicate.equals("reach")) {
+      return StepPredicate.reachesCell(arguments[0], arguments[1]);
+    } else if (arguments.length == 2 && predicate.equals("change")) {
+      return StepPredicate.cellChanges(arguments[0], arguments[1]);
+    } else if (arguments.length == 2 && predicate.equals("population")) {
+      return StepPredicate.populationReaches(arguments[0], arguments[1]);
+    } else if (arguments.length == 4 && predicate.equals("leave")) {
+      return StepPredicate.leavesRegion(arguments[0], arguments[1], arguments[2], arguments[3]);
+    }
+    return null;
+  }
+
+  /** Helper method for the command "shard". */
+  private void shardHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    } else if (!checkForNonNegativeNumbers(parameters)) {
+      printError(INVALID_INPUT);
+      return;
+    }
+
+    final int workers = Integer.parseInt(parameters[1]);
+    final int numberOfSteps = Integer.parseInt(parameters[2]);
+    if (workers < 1 || workers > game.getWidth()) {
+      printError(INVALID_INPUT);
+      return;
+    } else if (workers > SHARD_LIMIT) {
+      printError(TOO_MANY_WORKERS);
+      return;
+    }
+
+    try (ShardedSimulation simulation = ShardedSimulation.copyOf(game, game.getRule(), workers)) {
+      simulation.performSteps(numberOfSteps);
+      printGrid(simulation.snapshot());
+    } catch (IOException e) {
+      printError(WORKERS_FAILED);
+    }
+  }
+
+  /**
+   * Helper method for the commands "ensemble 'runs' 'n' 'density'" and "ensemble 'runs' 'n'
+   * 'density' 'seed'". Computes runs of n rounds on random boards of the size and rule of the
+   * current board, each cell starting in a non-zero state with the given probability in percent,
+   * and prints the statistics of all runs. Without a seed a random one is used, it is printed to
+   * repeat the runs.
+   */
+  private void ensembleHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    } else if (!checkForNonNegativeNumbers(Arrays.copyOf(parameters, 4))) {
+      printError(INVALID_INPUT);
+      return;
+    }
+
+    final int runs = Integer.parseInt(parameters[1]);
+    final int numberOfSteps = Integer.parseInt(parameters[2]);
+    final int density = Integer.parseInt(parameters[3]);
+    if (density > 100) {
+      printError(INVALID_INPUT);
+      return;
+    }
+
+    final long seed;
+    if (parameters.length > 4) {
+      try {
+        // the seed as printed by an earlier command
+        seed = Long.parseUnsignedLong(parameters[4], 16);
+      } catch (NumberFormatException e) {
+        printError(INVALID_INPUT);
+        return;
+      }
+    } else {
+      seed = new SplittableRandom().nextLong();
+    }
+    final Ensemble ensemble = Ensemble.create(game.getWidth(), game.getHeight(), game.getRule(),
+        density / 100.0, numberOfSteps);
+    // a shell sharing the computation executor computes the runs on one of its threads only
+    final int parallelism =
+        computation == null ? Runtime.getRuntime().availableProcessors() : 1;
+    final EnsembleResult[] results = new EnsembleResult[1];
+    compute(() -> {
+      try {
+        results[0] = ensemble.run(runs, seed, parallelism);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    final EnsembleResult result = results[0];
+    if (result == null) {
+      // interrupted
+      return;
+    }
+
+    final RunningStatistics highways = result.getTimeToHighway();
+    final RunningStatistics visited = result.getVisitedCells();
+    output.println(String.format("seed %016x: %d of %d runs built a highway", seed,
+        result.getHighways(), result.getRuns()));
+    if (highways.getCount() > 0) {
+      output.println("highway after " + formatStatistics(highways) + " rounds");
+    } else {
+      output.println("no highway");
+    }
+    if (visited.getCount() > 0) {
+      output.println("visited cells " + formatStatistics(visited));
+    }
+  }
+
+  /** Formats the mean, the deviation and the range of statistics of at least one value. */
+  private static String formatStatistics(final RunningStatistics statistics) {
+    if (statistics.getCount() == 1) {
+      return String.format("%.0f", statistics.getMean());
+    }
+    return String.format("%.0f +- %.0f (%.0f to %.0f)", statistics.getMean(),
+        statistics.getStandardDeviation(), statistics.getMinimum(), statistics.getMaximum());
+  }
+
+  /** Helper method for the command "set 'x' 'y' 'state'". */
+  private void setHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    } else if (!checkForNonNegativeNumbers(parameters)) {
+      printError(INVALID_INPUT);
+      return;
+    }
+
+    final int x = Integer.parseInt(parameters[1]);
+    final int y = Integer.parseInt(parameters[2]);
+    final int state = Integer.parseInt(parameters[3]);
+    if (x >= game.getWidth() || y >= game.getHeight()) {
+      printError(INDEX_OUT_OF_RANGE);
+    } else if (state >= game.getNumberOfStates()) {
+      printError(INVALID_STATES);
+    } else {
+      game.setState(x, y, state);
+    }
+  }
+
+  /**
+   * Helper method for the commands "fork" and "fork 'states'". Returns the new branch, which is
+   * the current board afterwards, or the current board if the branch cannot be created.
+   */
+  private Grid forkHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return game;
+    } else if (parameters.length > 1 && !checkForCorrectStates(parameters[1])) {
+      printError(INVALID_STATES);
+      return game;
+    }
+
+    final Grid fork;
+    try {
+      fork = parameters.length > 1 ? game.fork(parameters[1]) : game.fork();
+    } catch (IllegalArgumentException e) {
+      printError(INVALID_STATES);
+      return game;
+    }
+    branches.add(fork);
+    output.println("branch " + (branches.size() - 1));
+    return fork;
+  }
+
+  /**
+   * Helper method for the command "branch 'n'". Returns the board of the branch or the current
+   * board if there is no such branch.
+   */
+  private Grid branchHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return game;
+    } else if (!checkForNonNegativeNumbers(parameters)) {
+      printError(INVALID_INPUT);
+      return game;
+    }
+
+    final int branch = Integer.parseInt(parameters[1]);
+    if (branch >= branches.size()) {
+      printError(INDEX_OUT_OF_RANGE);
+      return game;
+    }
+    return branches.get(branch);
+  }
+
+  /** Helper method for the command "check 'engine' 'n'". */
+  private void checkHelper(final Grid game, final String[] parameters) {
+    if (game == null) {
+      printError(NO_BOARD_EXISTING);
+      return;
+    } else if (game.getAnts().isEmpty()) {
+      printError(NO_ANT_EXISTING);
+      return;
+    } else if (!GridEngines.getNames().contains(parameters[1])) {
+      printError(UNKNOWN_ENGINE);
+      return;
+    } else if (!checkForNonNegativeNumbers(new String[] {parameters[0], parameters[2]})) {
+      printError(INVALID_INPUT);
+      return;
+    }
+
+    // both engines start with a copy of the current board
+    final int steps = Integer.parseInt(parameters[2]);
+    final int[] difference = new int[1];
+    compute(() -> difference[0] = GridEngines.check(GridEngines.get(parameters[1]), game, steps));
+    if (difference[0] < 0) {
+      output.println("no difference in " + steps + " rounds");
+    } else {
+      output.println("first difference after round " + difference[0]);
+    }
   }
 
   /** Helper method to print the help texts for all commands. */
-  private static void helpPrinter() {
-    System.out.println("\n=== All possible commands: ===\n");
+  private void helpPrinter() {
+    output.println("\n=== All possible commands: ===\n");
     for (final ShellCommand cmd : ShellCommand.values()) {
-      System.out.println(cmd.getHelpText() + "\n");
+      output.println(cmd.getHelpText() + "\n");
     }
   }
 
   /** Prints a textual representation of the current grid. */
-  private static void printGrid(Grid game) {
+  private void printGrid(CellView game) {
+    output.print(renderGrid(game));
+    output.flush();
+  }
+
+  /**
+   * Returns a textual representation of the current grid. Consecutive cells in the same state share
+   * one color escape sequence.
+   */
+  private String renderGrid(CellView game) {
+    final StringBuilder text = new StringBuilder();
+    final String lineSeparator = System.lineSeparator();
+    final StateRepresentation[] states = StateRepresentation.values();
     for (int i = 0; i < game.getHeight(); i++) {
       int j = 0;
-      for (Cell c : game.getRow(i)) {
-        for (final StateRepresentation state : StateRepresentation.values()) {
-          if (state.getNumber() == c.getState()) {
-            System.out.print(
-                state.getColor() + printCell(game, i, j, state.getRepresentation()) + ANSI_RESET);
-          }
+      while (j < game.getWidth()) {
+        final StateRepresentation state = states[game.getState(j, i)];
+        final int end = j + game.getRunLength(j, i);
+        text.append(state.getColor());
+        for (; j < end; j++) {
+          text.append(printCell(game, i, j, state.getRepresentation()));
         }
-        j++;
+        text.append(ANSI_RESET);
       }
-      System.out.println();
+      text.append(lineSeparator);
     }
+    return text.toString();
   }
 
   /** Prints the current cell (with or without ant). */
-  private static String printCell(Grid game, int y, int x, String state) {
-    if (game.getAnts().isEmpty()) {
+  private String printCell(CellView game, int y, int x, String state) {
+    final Ant ant = game.getAnt(x, y);
+    if (ant == null) {
       return state;
     }
 
-    Ant currentAnt = null;
-    Coordinate antCoordinate = null;
-
-    for (Map.Entry<Coordinate, Ant> entry : game.getAnts().entrySet()) {
-      antCoordinate = entry.getKey();
-      currentAnt = entry.getValue();
-    }
-
-    final int antX = antCoordinate.getX();
-    final int antY = antCoordinate.getY();
-
-    if (antX == x && antY == y) {
-      switch (currentAnt.getOrientation()) {
-        case EAST:
-          return ">";
-        case NORTH:
-          return "^";
-        case SOUTH:
-          return "v";
-        case WEST:
-          return "<";
-        default:
-          break;
-      }
+    switch (ant.getOrientation()) {
+      case EAST:
+        return ">";
+      case NORTH:
+        return "^";
+      case SOUTH:
+        return "v";
+      case WEST:
+        return "<";
+      default:
+        return state;
     }
-    return state;
   }
 
   /** Helper method identify a given command. */
@@ -356,25 +1251,45 @@ public class Shell {
     return false;
   }
 
+  /** Checks if a String[] (beginning at index 1) contains only non-negative numbers. */
+  private static boolean checkForNonNegativeNumbers(final String[] input) {
+    return checkForInvalidInput(input) && !containsNegativeNumbers(input);
+  }
+
   /**
-   * Checks if the correct state configuration was used i.e. if the given String consists only of
-   * the capital letters 'R' and 'L' and its length is between 2 and 12.
+   * Checks if the correct state configuration was used i.e. if the given String is either a
+   * classic rule consisting only of the capital letters 'R' and 'L' or a turmite rule, with
+   * between 2 and 12 states (colors).
    */
   private static boolean checkForCorrectStates(final String input) {
-    if (input.length() < MINIMUM_NUMBER_OF_STATES || input.length() > MAXIMUM_NUMBER_OF_STATES) {
-      return false;
+    return Rule.isValid(input);
+  }
+
+  /**
+   * Runs an expensive task on the computation executor and waits for it to finish. Without such
+   * an executor the task is run directly.
+   */
+  private void compute(Runnable task) {
+    if (computation == null) {
+      task.run();
+      return;
     }
-    for (final char currentChar : input.toCharArray()) {
-      if (currentChar != TURN_RIGHT && currentChar != TURN_LEFT) {
-        return false;
+
+    try {
+      computation.submit(task).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
       }
+      throw new IllegalStateException(e.getCause());
     }
-    return true;
   }
 
-  /** Prints the specified string to standard out. */
-  private static void printError(String errorMessage) {
-    System.err.println(errorMessage);
+  /** Prints the specified string to the error stream. */
+  private void printError(String errorMessage) {
+    error.println(errorMessage);
   }
 
 }
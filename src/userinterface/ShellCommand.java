@@ -6,7 +6,10 @@ package userinterface;
  */
 enum ShellCommand {
   NEW("new", 4,
-      "new <cols> <rows> <config>: Creates a new Board."),
+      "new <cols> <rows> <config>: Creates a new Board. The config is either a classic ant e.g."
+          + " RL or a turmite e.g. 1L1,1L1/1R1,0N0 (per ant state: new color, turn, new state)."),
+  NEW_WITH_ENGINE("new", 5,
+      "new <cols> <rows> <config> <engine>: Creates a new Board computed by the given engine."),
   ANT("ant", 3,
       "ant <x> <y>: Adds a new ant to the board. Only one ant at once is possible."),
   UNANT("unant", 1,
@@ -15,14 +18,88 @@ enum ShellCommand {
       "step: Computes the next round i.e. the ant moves once."),
   MULTIPLE_STEPS("step", 2,
       "step <n>: Computes the next n rounds i.e. the next n moves of the ant."),
+  PLAY("play", 2,
+      "play <fps>: Animates the board at the given frame rate until the next command is"
+          + " entered."),
+  TIMED_PLAY("play", 3,
+      "play <fps> <seconds>: Animates the board at the given frame rate for the given time."),
   PRINT("print", 1,
       "print: Prints the current state of the board."),
   CLEAR("clear", 1,
       "clear: Resets the entire board to its initial state."),
   RESIZE("resize", 3,
       "resize <cols> <rows>: Resizes the current grid. If the ant is out of range it is deleted"),
+  COUNT("count", 1,
+      "count: Prints the number of cells in each state."),
+  TRACK("track", 2,
+      "track <on|off>: Starts or stops tracking how often and when each cell is visited."),
+  HEATMAP("heatmap", 2,
+      "heatmap <file>: Writes the tracked visit counts as PNG image."),
+  VISITS("visits", 2,
+      "visits <file>: Writes the tracked visit counts and first visits as binary dump."),
+  JOURNAL("journal", 2,
+      "journal <file|off>: Starts or stops streaming every move of the ant into a file."),
+  CHECKPOINT("checkpoint", 4,
+      "checkpoint <dir> <n> <seconds>: Writes a checkpoint into the directory every n rounds and"
+          + " every given number of seconds, 0 disables either interval."),
+  CHECKPOINT_OFF("checkpoint", 2,
+      "checkpoint off: Writes a final checkpoint of the current round and stops writing"
+          + " checkpoints."),
+  RESUME("resume", 2,
+      "resume <dir>: Continues the board of the newest valid checkpoint in the directory."),
+  SHARD("shard", 3,
+      "shard <workers> <n>: Computes the next n rounds in separate worker processes and prints"
+          + " the result. The board itself is not changed. The number of workers is limited by the"
+          + " processors to between two and eight."),
+  ENSEMBLE("ensemble", 4,
+      "ensemble <runs> <n> <density>: Computes runs of n rounds on random boards of the current"
+          + " size and rule, with each cell non-zero at the given percentage, and prints their"
+          + " statistics. The board itself is not changed."),
+  ENSEMBLE_WITH_SEED("ensemble", 5,
+      "ensemble <runs> <n> <density> <seed>: Like ensemble, but with the given hexadecimal seed,"
+          + " which reproduces the printed statistics."),
+  INDEX("index", 2,
+      "index <on|off>: Starts or stops maintaining an index for fast region counts."),
+  REGION("region", 5,
+      "region <x> <y> <width> <height>: Prints the number of cells in each state inside of the"
+          + " given rectangle."),
+  SET("set", 4,
+      "set <x> <y> <state>: Sets the cell at the given position to the given state."),
+  FORK("fork", 1,
+      "fork: Creates a branch of the current board sharing its unchanged cells and switches to"
+          + " it."),
+  FORK_WITH_RULE("fork", 2,
+      "fork <states>: Creates a branch of the current board with another rule and switches to it."),
+  BRANCH("branch", 2,
+      "branch <n>: Switches to the board of branch n, branch 0 is the board created by new."),
+  ENGINES("engines", 1,
+      "engines: Prints the names of all engines, the first one is the reference."),
+  CHECK("check", 3,
+      "check <engine> <n>: Computes n rounds from a copy of the current board with the given"
+          + " engine and the reference engine and prints the first round in which they differ. The"
+          + " board itself is not changed."),
+  RUN_UNTIL_STEP("run", 4,
+      "run until step <n>: Computes rounds until n rounds are computed in total. Every run"
+          + " computes at most 1000000 rounds."),
+  RUN_UNTIL_CELL("run", 5,
+      "run until <reach|change|population> <a> <b>: Computes rounds until the ant reaches the cell"
+          + " at (a, b), the cell at (a, b) changes its state or b cells are in state a."),
+  RUN_UNTIL_REGION("run", 7,
+      "run until leave <x> <y> <width> <height>: Computes rounds until the ant leaves the given"
+          + " rectangle."),
+  CACHE("cache", 3,
+      "cache <dir> <megabytes>: Opens the snapshot cache in the directory, which keeps at most the"
+          + " given size of snapshots and deletes the least recently used ones first."),
+  CACHE_OFF("cache", 2,
+      "cache off: Stops using the snapshot cache, its snapshots are kept."),
+  CACHED("cached", 7,
+      "cached <cols> <rows> <config> <x> <y> <n>: Creates the board of the given size and rule"
+          + " whose single ant started at (x, y) after n rounds. It is loaded from the snapshot"
+          + " cache or continued from its nearest earlier snapshot, new results are added."),
   HELP("help", 1,
       "help: Prints this help text."),
+  HASH("hash", 1,
+      "hash: Prints the hash of the current configuration of the board and the ant."),
   QUIT("quit", 1,
       "quit: Exits this programm."),
   // for wrong commands
@@ -0,0 +1,69 @@
+package game;
+
+import java.util.Map;
+
+/**
+ * Tests of the {@code ConcurrentColony}. The tests do not depend on a framework, they are run by
+ * {@code java -cp <classes> game.ConcurrentColonyTest} and throw an {@code AssertionError} on
+ * failure.
+ */
+public final class ConcurrentColonyTest {
+
+  private ConcurrentColonyTest() {
+    // generating objects of this class is not intended
+    throw new AssertionError();
+  }
+
+  /**
+   * Runs all tests.
+   * 
+   * @param args not used
+   * @throws Exception if a test fails
+   */
+  public static void main(String[] args) throws Exception {
+    singleAntEqualsBoard("RL");
+    singleAntEqualsBoard("LLRR");
+    singleAntEqualsBoard("1L1,1L1/1R1,0N0");
+    System.out.println("ConcurrentColonyTest passed");
+  }
+
+  /**
+   * A single ant has no other ant to race with, thus the colony computes the same cells, ant and
+   * populations as a {@code Board}, even if the steps are split into several calls.
+   */
+  private static void singleAntEqualsBoard(String rule) throws InterruptedException {
+    final Board board = Board.create(130, 90, rule);
+    board.setAnt(Ant.create(65, 45), 65, 45);
+    try (ConcurrentColony colony = ConcurrentColony.copyOf(board, rule, 4)) {
+      for (int i = 0; i < 10; i++) {
+        colony.performSteps(5000);
+      }
+      board.performStep(50_000);
+
+      for (int y = 0; y < board.getHeight(); y++) {
+        for (int x = 0; x < board.getWidth(); x++) {
+          check(colony.getState(x, y) == board.getState(x, y),
+              rule + ": wrong state at " + x + ", " + y);
+        }
+      }
+      final Map.Entry<Coordinate, Ant> expected = board.getAnts().entrySet().iterator().next();
+      final Ant ant = colony.getAnt(expected.getKey().getX(), expected.getKey().getY());
+      check(colony.getNumberOfAnts() == 1 && ant != null, rule + ": wrong position of the ant");
+      check(ant.getOrientation() == expected.getValue().getOrientation(),
+          rule + ": wrong orientation of the ant");
+      for (int state = 0; state < Rule.parse(rule).getColors(); state++) {
+        check(colony.getPopulation(state) == board.getPopulation(state),
+            rule + ": wrong population of state " + state);
+      }
+      check(colony.getStepCount() == board.getStepCount(), rule + ": wrong number of steps");
+    }
+  }
+
+  /** Throws an {@code AssertionError} with the given message if the condition does not hold. */
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+package game;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Tests of the {@code ShardedSimulation}. The tests do not depend on a framework, they are run by
+ * {@code java -cp <classes> game.ShardedSimulationTest} and throw an {@code AssertionError} on
+ * failure. The worker processes are started with the same class path.
+ */
+public final class ShardedSimulationTest {
+
+  private ShardedSimulationTest() {
+    // generating objects of this class is not intended
+    throw new AssertionError();
+  }
+
+  /**
+   * Runs all tests.
+   * 
+   * @param args not used
+   * @throws Exception if a test fails
+   */
+  public static void main(String[] args) throws Exception {
+    singleAntEqualsBoard("RL");
+    singleAntEqualsBoard("LLRR");
+    singleAntEqualsBoard("1L1,1L1/1R1,0N0");
+    System.out.println("ShardedSimulationTest passed");
+  }
+
+  /**
+   * A single ant crossing the borders of three shards computes the same cells, ant and
+   * populations as a {@code Board}, even if the steps are split into several epochs.
+   */
+  private static void singleAntEqualsBoard(String rule) throws IOException {
+    // the ant starts next to the border of the first two shards, thus even LLRR crosses it
+    final Board board = Board.create(130, 90, rule);
+    board.setAnt(Ant.create(43, 45), 43, 45);
+    final ColonySnapshot snapshot;
+    try (ShardedSimulation simulation = ShardedSimulation.copyOf(board, rule, 3)) {
+      for (int i = 0; i < 10; i++) {
+        simulation.performSteps(5000);
+      }
+      snapshot = simulation.snapshot();
+    }
+    board.performStep(50_000);
+
+    for (int y = 0; y < board.getHeight(); y++) {
+      for (int x = 0; x < board.getWidth(); x++) {
+        check(snapshot.getState(x, y) == board.getState(x, y),
+            rule + ": wrong state at " + x + ", " + y);
+      }
+    }
+    final Map.Entry<Coordinate, Ant> expected = board.getAnts().entrySet().iterator().next();
+    final Ant ant = snapshot.getAnt(expected.getKey().getX(), expected.getKey().getY());
+    check(snapshot.getNumberOfAnts() == 1 && ant != null, rule + ": wrong position of the ant");
+    check(ant.getOrientation() == expected.getValue().getOrientation(),
+        rule + ": wrong orientation of the ant");
+    // the snapshot returns copies of its ants
+    ant.setX(expected.getKey().getX() + 1);
+    check(snapshot.getAnt(expected.getKey().getX(), expected.getKey().getY()).getX()
+        == expected.getKey().getX(), rule + ": ant of the snapshot changed");
+    for (int state = 0; state < Rule.parse(rule).getColors(); state++) {
+      check(snapshot.getPopulation(state) == board.getPopulation(state),
+          rule + ": wrong population of state " + state);
+    }
+    check(snapshot.getStepCount() == board.getStepCount(), rule + ": wrong number of steps");
+  }
+
+  /** Throws an {@code AssertionError} with the given message if the condition does not hold. */
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+
+}
@@ -0,0 +1,55 @@
+package game;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of the {@code Simulator}. The tests do not depend on a framework, they are run by
+ * {@code java -cp <classes> game.SimulatorTest} and throw an {@code AssertionError} on failure.
+ */
+public final class SimulatorTest {
+
+  private SimulatorTest() {
+    // generating objects of this class is not intended
+    throw new AssertionError();
+  }
+
+  /**
+   * Runs all tests.
+   * 
+   * @param args not used
+   * @throws Exception if a test fails
+   */
+  public static void main(String[] args) throws Exception {
+    shortJobIsNotStarvedByLongJob();
+    System.out.println("SimulatorTest passed");
+  }
+
+  /**
+   * A short job submitted while a long job is running on the only thread completes after a few
+   * slices, not after the long job.
+   */
+  private static void shortJobIsNotStarvedByLongJob() throws Exception {
+    try (Simulator simulator = Simulator.create(1)) {
+      // the stop condition forces the slow step-by-step loop, thus the job takes seconds
+      final CompletableFuture<SimulationResult> longJob = simulator.submit(
+          SimulationJob.create(256, 256, "RL", 128, 128, 20_000_000).stopWhen(grid -> false));
+      Thread.sleep(100);
+      final CompletableFuture<SimulationResult> shortJob =
+          simulator.submit(SimulationJob.create(64, 64, "RL", 32, 32, 1000));
+
+      final SimulationResult result = shortJob.get(10, TimeUnit.SECONDS);
+      check(result.getReason() == StopReason.STEP_BUDGET, "short job did not use its budget");
+      check(!longJob.isDone(), "short job waited for the long job");
+      longJob.cancel(true);
+    }
+  }
+
+  /** Throws an {@code AssertionError} with the given message if the condition does not hold. */
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+
+}
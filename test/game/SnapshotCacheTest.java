@@ -0,0 +1,182 @@
+package game;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Tests of the {@code SnapshotCache}. The tests do not depend on a framework, they are run by
+ * {@code java -cp <classes> game.SnapshotCacheTest} and throw an {@code AssertionError} on failure.
+ */
+public final class SnapshotCacheTest {
+
+  // a capacity no snapshot of the tests comes close to
+  private static final long UNLIMITED = 1L << 40;
+
+  private SnapshotCacheTest() {
+    // generating objects of this class is not intended
+    throw new AssertionError();
+  }
+
+  /**
+   * Runs all tests.
+   *
+   * @param args not used
+   * @throws Exception if a test fails
+   */
+  public static void main(String[] args) throws Exception {
+    continuesFromNearestEarlierSnapshot();
+    evictsLeastRecentlyUsedSnapshot();
+    reopenedCacheReusesSnapshots();
+    openDeletesInvalidSnapshots();
+    System.out.println("SnapshotCacheTest passed");
+  }
+
+  /**
+   * A query continues from the snapshot with the largest smaller number of steps and equals the
+   * board simulated from the start.
+   */
+  private static void continuesFromNearestEarlierSnapshot() throws IOException {
+    final Path directory = Files.createTempDirectory("snapshots");
+    try {
+      final SnapshotCache cache = SnapshotCache.open(directory, UNLIMITED);
+      cache.get(64, 48, "LLRR", 30, 20, 1000);
+      cache.get(64, 48, "LLRR", 30, 20, 3000);
+
+      final Grid board = cache.get(64, 48, "LLRR", 30, 20, 5000);
+      check(board.getStepCount() == 5000, "wrong number of steps");
+      check(board.hasEqualCells(simulate(64, 48, "LLRR", 30, 20, 5000)), "wrong cells");
+      check(originStep(board) == 3000, "not continued from the nearest earlier snapshot");
+
+      final Grid between = cache.get(64, 48, "LLRR", 30, 20, 2000);
+      check(originStep(between) == 1000, "not continued from the snapshot before");
+      check(cache.getNumberOfSnapshots() == 4, "snapshots missing");
+    } finally {
+      delete(directory);
+    }
+  }
+
+  /**
+   * Once the capacity is exceeded the least recently used snapshot is deleted, a query reusing a
+   * snapshot counts as use.
+   */
+  private static void evictsLeastRecentlyUsedSnapshot() throws IOException {
+    // the sizes of the snapshots are measured in a cache without limit first
+    final long[] sizes = new long[3];
+    final Path measured = Files.createTempDirectory("snapshots");
+    try {
+      final SnapshotCache cache = SnapshotCache.open(measured, UNLIMITED);
+      for (int i = 0; i < sizes.length; i++) {
+        final long before = cache.getSize();
+        cache.get(64, 64, "RL", 10 + 20 * i, 32, 4000);
+        sizes[i] = cache.getSize() - before;
+      }
+    } finally {
+      delete(measured);
+    }
+
+    final Path directory = Files.createTempDirectory("snapshots");
+    try {
+      // the first and the last snapshot fit, all three do not
+      final SnapshotCache cache =
+          SnapshotCache.open(directory, sizes[0] + sizes[2] + sizes[1] / 2);
+      cache.get(64, 64, "RL", 10, 32, 4000);
+      cache.get(64, 64, "RL", 30, 32, 4000);
+      // use the first snapshot again, thus the second is the least recently used one
+      check(originStep(cache.get(64, 64, "RL", 10, 32, 4000)) == 4000, "first snapshot missing");
+      cache.get(64, 64, "RL", 50, 32, 4000);
+
+      check(cache.getNumberOfSnapshots() == 2, "no snapshot evicted");
+      check(cache.getSize() <= sizes[0] + sizes[2] + sizes[1] / 2, "capacity exceeded");
+      check(originStep(cache.get(64, 64, "RL", 10, 32, 4000)) == 4000, "used snapshot evicted");
+      check(originStep(cache.get(64, 64, "RL", 50, 32, 4000)) == 4000, "new snapshot evicted");
+    } finally {
+      delete(directory);
+    }
+  }
+
+  /** Snapshots written by one cache are reused by a cache opened later on the same directory. */
+  private static void reopenedCacheReusesSnapshots() throws IOException {
+    final Path directory = Files.createTempDirectory("snapshots");
+    try {
+      final SnapshotCache first = SnapshotCache.open(directory, UNLIMITED);
+      first.get(40, 40, "1L1,1L1/1R1,0N0", 20, 20, 2500);
+      final long size = first.getSize();
+
+      final SnapshotCache reopened = SnapshotCache.open(directory, UNLIMITED);
+      check(reopened.getNumberOfSnapshots() == 1, "snapshot not found after reopening");
+      check(reopened.getSize() == size, "wrong size after reopening");
+      final Grid board = reopened.get(40, 40, "1L1,1L1/1R1,0N0", 20, 20, 2500);
+      check(board.hasEqualCells(simulate(40, 40, "1L1,1L1/1R1,0N0", 20, 20, 2500)),
+          "wrong cells after reopening");
+      check(originStep(board) == 2500, "snapshot not reused after reopening");
+    } finally {
+      delete(directory);
+    }
+  }
+
+  /** Opening the cache deletes damaged snapshots and snapshots of an empty board. */
+  private static void openDeletesInvalidSnapshots() throws IOException {
+    final Path directory = Files.createTempDirectory("snapshots");
+    try {
+      Files.write(directory.resolve("damaged.snapshot"), new byte[] {1, 2, 3});
+      try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(
+          Files.newOutputStream(directory.resolve("empty.snapshot"))))) {
+        // magic number, ant, rule, width 0, height 0 and steps
+        out.writeInt(0x414E5443);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeUTF("RL");
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(0);
+      }
+
+      final SnapshotCache cache = SnapshotCache.open(directory, UNLIMITED);
+      check(cache.getNumberOfSnapshots() == 0, "invalid snapshot indexed");
+      check(!Files.exists(directory.resolve("damaged.snapshot")), "damaged snapshot kept");
+      check(!Files.exists(directory.resolve("empty.snapshot")), "empty snapshot kept");
+    } finally {
+      delete(directory);
+    }
+  }
+
+  /** Returns a board simulated from the start without the cache. */
+  private static Grid simulate(int width, int height, String rule, int antX, int antY,
+      int steps) {
+    final Grid board = Board.create(width, height, rule);
+    board.setAnt(Ant.create(antX, antY), antX, antY);
+    board.performStep(steps);
+    return board;
+  }
+
+  /**
+   * Resets a board as far as possible and returns its number of steps, i.e. the step it was loaded
+   * at.
+   */
+  private static int originStep(Grid board) {
+    board.reset(board.getStepCount());
+    return board.getStepCount();
+  }
+
+  /** Deletes a directory and the files in it. */
+  private static void delete(Path directory) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  /** Throws an {@code AssertionError} with the given message if the condition does not hold. */
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+
+}